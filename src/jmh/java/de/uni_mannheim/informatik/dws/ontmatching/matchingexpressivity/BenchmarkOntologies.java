@@ -0,0 +1,186 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+/**
+ * The ontologies used by the benchmarks: the real ontologies of the tests and synthetic ontologies of a given size.
+ * @author shertlin
+ */
+public final class BenchmarkOntologies {
+
+    /**
+     * Directory with the real ontologies (name.rdf). Missing ones are downloaded into it.
+     */
+    static final String DIRECTORY_PROPERTY = "benchmark.ontologies";
+
+    private static final Map<String, String> REAL = new HashMap<>();
+    static {
+        REAL.put("pizza", "https://protege.stanford.edu/ontologies/pizza/pizza.owl");
+        REAL.put("wine", "http://www.w3.org/TR/owl-guide/wine.rdf");
+        REAL.put("travel", "https://protege.stanford.edu/ontologies/travel.owl");
+        REAL.put("koala", "https://protege.stanford.edu/ontologies/koala.owl");
+        REAL.put("camera", "https://protege.stanford.edu/ontologies/camera.owl");
+        REAL.put("people", "http://owl.man.ac.uk/2006/07/sssw/people.owl");
+    }
+
+    /**
+     * Which constructs a synthetic ontology contains.
+     */
+    public enum Mix {
+        /** class hierarchy, domain and range */
+        TAXONOMY(Axiom.SUBCLASS, Axiom.DOMAIN_RANGE),
+        /** additionally existential and universal restrictions, union, intersection and complement */
+        ALC(Axiom.SUBCLASS, Axiom.DOMAIN_RANGE, Axiom.SOME, Axiom.ALL, Axiom.UNION, Axiom.INTERSECTION, Axiom.COMPLEMENT),
+        /** additionally role hierarchy, transitive and inverse roles, nominals and cardinalities */
+        SHOIN(Axiom.SUBCLASS, Axiom.DOMAIN_RANGE, Axiom.SOME, Axiom.ALL, Axiom.UNION, Axiom.INTERSECTION, Axiom.COMPLEMENT,
+                Axiom.SUBPROPERTY, Axiom.TRANSITIVE, Axiom.INVERSE, Axiom.NOMINAL, Axiom.CARDINALITY);
+
+        private final List<Axiom> axioms;
+
+        Mix(Axiom... axioms) {
+            this.axioms = Arrays.asList(axioms);
+        }
+    }
+
+    private enum Axiom { SUBCLASS, DOMAIN_RANGE, SOME, ALL, UNION, INTERSECTION, COMPLEMENT, SUBPROPERTY, TRANSITIVE, INVERSE, NOMINAL, CARDINALITY }
+
+    private static final String NS = "http://example.com/synthetic#";
+
+    private BenchmarkOntologies() {
+    }
+
+    /**
+     * @param name one of pizza, wine, travel, koala, camera, people
+     * @return the RDF/XML file of the ontology, downloaded if it is not in the directory {@link #DIRECTORY_PROPERTY} yet
+     */
+    static Path getRealOntology(String name){
+        String url = REAL.get(name);
+        if(url == null)
+            throw new IllegalArgumentException("Unknown ontology " + name);
+        Path file = Paths.get(System.getProperty(DIRECTORY_PROPERTY, "target/benchmark-ontologies")).resolve(name + ".rdf");
+        if(Files.exists(file))
+            return file;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), name, ".tmp");
+            try(InputStream in = new URL(url).openStream()){
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not download " + url + " - put it as " + file + " instead", ex);
+        }
+    }
+
+    /**
+     * Generates an ontology: for each schema axiom of the mix (chosen round robin) nine instance triples are added.
+     * @param triples the number of triples (at least)
+     * @param mix the constructs which occur
+     * @param seed the seed of the random choices
+     * @return the ontology
+     */
+    static Model createSynthetic(long triples, Mix mix, long seed){
+        Random random = new Random(seed);
+        Model m = ModelFactory.createDefaultModel();
+        int classes = (int) Math.max(10, Math.sqrt(triples));
+        int properties = Math.max(5, classes / 10);
+        int individuals = (int) Math.max(10, triples / 10);
+        for(long i = 0; m.size() < triples; i++){
+            addAxiom(m, mix.axioms.get((int) (i % mix.axioms.size())), random, classes, properties, individuals);
+            for(int j = 0; j < 9; j++){
+                Resource individual = m.createResource(NS + "i" + random.nextInt(individuals));
+                if(j % 3 == 0){
+                    individual.addProperty(RDF.type, cls(m, random, classes));
+                }else{
+                    individual.addProperty(property(m, random, properties), m.createResource(NS + "i" + random.nextInt(individuals)));
+                }
+            }
+        }
+        return m;
+    }
+
+    private static void addAxiom(Model m, Axiom axiom, Random random, int classes, int properties, int individuals){
+        Resource c = cls(m, random, classes);
+        Property p = property(m, random, properties);
+        switch(axiom){
+            case SUBCLASS:
+                c.addProperty(RDFS.subClassOf, cls(m, random, classes));
+                break;
+            case DOMAIN_RANGE:
+                p.addProperty(random.nextBoolean() ? RDFS.domain : RDFS.range, cls(m, random, classes));
+                break;
+            case SOME:
+                c.addProperty(RDFS.subClassOf, restriction(m, p).addProperty(OWL.someValuesFrom, cls(m, random, classes)));
+                break;
+            case ALL:
+                c.addProperty(RDFS.subClassOf, restriction(m, p).addProperty(OWL.allValuesFrom, cls(m, random, classes)));
+                break;
+            case UNION:
+                c.addProperty(OWL.equivalentClass, m.createResource(OWL.Class).addProperty(OWL.unionOf,
+                        m.createList(new RDFNode[]{cls(m, random, classes), cls(m, random, classes)})));
+                break;
+            case INTERSECTION:
+                c.addProperty(OWL.equivalentClass, m.createResource(OWL.Class).addProperty(OWL.intersectionOf,
+                        m.createList(new RDFNode[]{cls(m, random, classes), cls(m, random, classes)})));
+                break;
+            case COMPLEMENT:
+                c.addProperty(RDFS.subClassOf, m.createResource(OWL.Class).addProperty(OWL.complementOf, cls(m, random, classes)));
+                break;
+            case SUBPROPERTY:
+                p.addProperty(RDFS.subPropertyOf, property(m, random, properties));
+                break;
+            case TRANSITIVE:
+                p.addProperty(RDF.type, OWL.TransitiveProperty);
+                break;
+            case INVERSE:
+                p.addProperty(OWL.inverseOf, property(m, random, properties));
+                break;
+            case NOMINAL:
+                c.addProperty(OWL.equivalentClass, m.createResource(OWL.Class).addProperty(OWL.oneOf,
+                        m.createList(new RDFNode[]{m.createResource(NS + "i" + random.nextInt(individuals))})));
+                break;
+            case CARDINALITY:
+                c.addProperty(RDFS.subClassOf, restriction(m, p).addLiteral(OWL.minCardinality,
+                        m.createTypedLiteral("2", XSDDatatype.XSDnonNegativeInteger)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown axiom " + axiom);
+        }
+    }
+
+    private static Resource restriction(Model m, Property p){
+        return m.createResource(OWL.Restriction).addProperty(OWL.onProperty, p);
+    }
+
+    private static Resource cls(Model m, Random random, int classes){
+        return m.createResource(NS + "C" + random.nextInt(classes), OWL.Class);
+    }
+
+    private static Property property(Model m, Random random, int properties){
+        Property p = m.createProperty(NS + "p" + random.nextInt(properties));
+        p.addProperty(RDF.type, OWL.ObjectProperty);
+        return p;
+    }
+}
@@ -0,0 +1,76 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.util.Construct;
+import org.semanticweb.owlapi.util.DLExpressivityChecker;
+
+/**
+ * Throughput of the checkers on the real ontologies of the tests.
+ * The ontologies are parsed once, only the check itself is measured (except for the stream checker which always parses).
+ * @author shertlin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RealOntologyBenchmark {
+
+    public enum Engine { OWLAPI, MODEL, INCREMENTAL, STREAM }
+
+    @Param({"pizza", "wine", "travel", "koala", "camera", "people"})
+    public String ontology;
+
+    @Param({"OWLAPI", "MODEL", "INCREMENTAL", "STREAM"})
+    public Engine engine;
+
+    private Path file;
+    private Model model;
+    private OWLOntology owlOntology;
+
+    @Setup
+    public void setup() throws OWLOntologyCreationException {
+        this.file = BenchmarkOntologies.getRealOntology(this.ontology);
+        this.model = RDFDataMgr.loadModel(this.file.toString(), Lang.RDFXML);
+        this.owlOntology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(this.file.toFile());
+    }
+
+    @Benchmark
+    public List<Construct> check() {
+        switch(this.engine){
+            case OWLAPI:
+                return new DLExpressivityChecker(Collections.singleton(this.owlOntology)).getConstructs();
+            case MODEL:
+                return new ModelDlExpressivityChecker(this.model).getConstructs();
+            case INCREMENTAL:
+                try(IncrementalDlExpressivityChecker checker = new IncrementalDlExpressivityChecker(this.model)){
+                    return checker.getConstructs();
+                }
+            case STREAM:
+                return new StreamDlExpressivityChecker(this.file.toString(), Lang.RDFXML).getConstructs();
+            default:
+                throw new IllegalArgumentException("Unknown engine " + this.engine);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.DatasetFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time of the query strategies of {@link SparqlDlExpressivityChecker} against a {@link LocalSparqlEndpoint}
+ * which simulates latency, jitter and failed requests.
+ * DEADLINE runs the asynchronous check with a deadline of 500 ms and returns the partial result.
+ * @author shertlin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RemoteEndpointBenchmark {
+
+    public enum Strategy { ASK, ASK_CONCURRENT, BATCHED, BATCHED_CONCURRENT, DEADLINE }
+
+    @Param({"ASK", "ASK_CONCURRENT", "BATCHED", "BATCHED_CONCURRENT", "DEADLINE"})
+    public Strategy strategy;
+
+    @Param({"0", "20", "100"})
+    public long latencyMillis;
+
+    @Param({"0", "0.05"})
+    public double errorRate;
+
+    @Param({"10000"})
+    public long triples;
+
+    private LocalSparqlEndpoint endpoint;
+
+    @Setup
+    public void setup() throws IOException {
+        this.endpoint = new LocalSparqlEndpoint(DatasetFactory.create(BenchmarkOntologies.createSynthetic(this.triples, BenchmarkOntologies.Mix.SHOIN, 42)))
+                .setLatency(Duration.ofMillis(this.latencyMillis))
+                .setJitter(Duration.ofMillis(this.latencyMillis / 4))
+                .setErrorRate(this.errorRate)
+                .setMaxConcurrentRequests(8)
+                .start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.endpoint.close();
+    }
+
+    @Benchmark
+    public Object check() {
+        SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(this.endpoint.getUrl());
+        checker.setInitialBackoffMillis(10);
+        checker.setMaxRetries(10);
+        switch(this.strategy){
+            case ASK:
+                checker.setBatchSize(0);
+                break;
+            case ASK_CONCURRENT:
+                checker.setBatchSize(0);
+                checker.setMaxConcurrentQueries(4);
+                break;
+            case BATCHED:
+                break;
+            case BATCHED_CONCURRENT:
+                checker.setMaxConcurrentQueries(4);
+                break;
+            case DEADLINE:
+                checker.setMaxConcurrentQueries(4);
+                return checker.checkAsync(Duration.ofMillis(500)).join();
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + this.strategy);
+        }
+        return checker.getConstructs();
+    }
+}
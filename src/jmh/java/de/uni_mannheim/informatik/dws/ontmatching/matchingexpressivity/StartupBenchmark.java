@@ -0,0 +1,78 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to first result of the CLI: each invocation starts a new JVM which checks the training ontology of the AppCDS archive.
+ * The jars are built before with <code>mvn -Pfast-startup package</code> (not together with the profile benchmark).
+ * Target: below 500 ms with the fast jar and its archive.
+ * @author shertlin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    public enum Variant { FAT_JAR, FAST_JAR, FAST_JAR_APPCDS }
+
+    @Param({"FAT_JAR", "FAST_JAR", "FAST_JAR_APPCDS"})
+    public Variant variant;
+
+    private List<String> command;
+    private Path output;
+
+    @Setup
+    public void setup() throws IOException {
+        Path target = Paths.get("target");
+        Path jar = target.resolve(this.variant == Variant.FAT_JAR ? "dl-expressivity-1.0-jar-with-dependencies.jar" : "dl-expressivity-1.0-fast.jar");
+        Path archive = target.resolve("dl-expressivity.jsa");
+        if(!Files.exists(jar) || (this.variant == Variant.FAST_JAR_APPCDS && !Files.exists(archive)))
+            throw new IllegalStateException("Build the jars first: mvn -Pfast-startup package");
+        this.output = Files.createTempFile("startup", ".jsonl");
+        this.command = new ArrayList<>();
+        this.command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if(this.variant == Variant.FAST_JAR_APPCDS){
+            this.command.add("-XX:SharedArchiveFile=" + archive);
+            this.command.add("-XX:TieredStopAtLevel=1");
+        }
+        this.command.add("-jar");
+        this.command.add(jar.toString());
+        this.command.add("-i");
+        this.command.add(Paths.get("src", "cds", "training.ttl").toString());
+        this.command.add("-o");
+        this.command.add(this.output.toString());
+    }
+
+    @Benchmark
+    public int timeToFirstResult() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(this.command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null")))
+                .start();
+        int exit = process.waitFor();
+        if(exit != 0 || Files.size(this.output) == 0)
+            throw new IllegalStateException("CLI failed with exit code " + exit);
+        return exit;
+    }
+}
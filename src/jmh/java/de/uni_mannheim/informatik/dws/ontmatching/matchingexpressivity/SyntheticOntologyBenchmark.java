@@ -0,0 +1,96 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * Time of the checkers on synthetic ontologies from 10^3 to 10^7 triples - the results over the size are the scaling curves.
+ * The largest sizes need a large heap, restrict them with e.g. <code>-p triples=1000,100000</code>.
+ * @author shertlin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SyntheticOntologyBenchmark {
+
+    public enum Engine { MODEL, MODEL_SPARQL, MODEL_PARALLEL, INCREMENTAL, STREAM, CHUNKED }
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public long triples;
+
+    @Param({"TAXONOMY", "ALC", "SHOIN"})
+    public BenchmarkOntologies.Mix mix;
+
+    @Param({"MODEL", "MODEL_SPARQL", "MODEL_PARALLEL", "INCREMENTAL", "STREAM", "CHUNKED"})
+    public Engine engine;
+
+    private Model model;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        this.model = BenchmarkOntologies.createSynthetic(this.triples, this.mix, 42);
+        if(this.engine == Engine.STREAM || this.engine == Engine.CHUNKED){
+            this.file = Files.createTempFile("synthetic", ".nt");
+            try(OutputStream out = Files.newOutputStream(this.file)){
+                RDFDataMgr.write(out, this.model, Lang.NTRIPLES);
+            }
+            this.model = null;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if(this.file != null)
+            Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public List<Construct> check() {
+        switch(this.engine){
+            case MODEL:
+                return new ModelDlExpressivityChecker(this.model).getConstructs();
+            case MODEL_SPARQL:
+                ModelDlExpressivityChecker sparql = new ModelDlExpressivityChecker(this.model);
+                sparql.setNativeMatching(false);
+                return sparql.getConstructs();
+            case MODEL_PARALLEL:
+                ModelDlExpressivityChecker parallel = new ModelDlExpressivityChecker(this.model);
+                parallel.setParallelism(Runtime.getRuntime().availableProcessors());
+                return parallel.getConstructs();
+            case INCREMENTAL:
+                try(IncrementalDlExpressivityChecker checker = new IncrementalDlExpressivityChecker(this.model)){
+                    return checker.getConstructs();
+                }
+            case STREAM:
+                return new StreamDlExpressivityChecker(this.file.toString(), Lang.NTRIPLES).getConstructs();
+            case CHUNKED:
+                return new ChunkedNTriplesDlExpressivityChecker(this.file).getConstructs();
+            default:
+                throw new IllegalArgumentException("Unknown engine " + this.engine);
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.jena.riot.Lang;
+import org.semanticweb.owlapi.util.Construct;
+import org.semanticweb.owlapi.util.Languages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks many ontology files in one JVM. The files are processed in parallel on a work stealing pool
+ * and one row (JSON line or CSV) is written per file as soon as it is finished.
+ * <p>
+ * Only a bounded number of files is in flight at the same time. When the files are loaded into a model
+ * (instead of being streamed) the sum of their sizes is bounded as well, so that large files do not exhaust the heap.
+ * @author shertlin
+ */
+public class BatchExpressivityChecker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchExpressivityChecker.class);
+
+    public enum Format { JSONL, CSV }
+
+    private static final String[] CSV_HEADER = {"file", "constructs", "dlName", "languages", "millis", "error"};
+
+    protected int threads = Runtime.getRuntime().availableProcessors();
+    protected Format format = Format.JSONL;
+    protected boolean loadModel = false;
+    protected int modelParallelism = 1;
+    protected boolean projectModel = false;
+    protected Lang inputLanguage;
+    protected ExpressivityResultStore resultStore;
+    protected long maxLoadedBytes = Runtime.getRuntime().maxMemory() / 8;
+    protected long chunkSize = ChunkedNTriplesDlExpressivityChecker.DEFAULT_CHUNK_SIZE;
+    protected PatternStatistics statistics;
+    protected final List<ExpressivityCheckListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Resolves the inputs to ontology files.
+     * @param inputs each one is a directory (all RDF files below it), a glob like <code>ontologies/**.owl</code>,
+     *   a file with one path per line if prefixed by <code>@</code>, or a single ontology file
+     * @return the files in the given order
+     * @throws IOException if a directory or file list cannot be read
+     */
+    public static List<Path> resolveFiles(Collection<String> inputs) throws IOException{
+        List<Path> files = new ArrayList<>();
+        for(String input : inputs){
+            if(input.startsWith("@")){
+                try(Stream<String> lines = Files.lines(Paths.get(input.substring(1)), StandardCharsets.UTF_8)){
+                    lines.map(String::trim).filter(l -> !l.isEmpty() && !l.startsWith("#")).map(Paths::get).forEach(files::add);
+                }
+            }else if(input.contains("*") || input.contains("?") || input.contains("{")){
+                files.addAll(glob(input));
+            }else{
+                Path path = Paths.get(input);
+                if(Files.isDirectory(path)){
+                    try(Stream<Path> walk = Files.walk(path)){
+                        walk.filter(Files::isRegularFile).filter(p -> OntologySource.filenameToLang(p.toString()) != null).sorted().forEach(files::add);
+                    }
+                }else{
+                    files.add(path);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static List<Path> glob(String pattern) throws IOException{
+        //walk from the longest directory prefix without wildcards
+        String[] segments = pattern.replace('\\', '/').split("/");
+        Path base = pattern.startsWith("/") ? Paths.get("/") : Paths.get("");
+        for(String segment : segments){
+            if(segment.isEmpty())
+                continue;
+            if(segment.contains("*") || segment.contains("?") || segment.contains("{"))
+                break;
+            base = base.resolve(segment);
+        }
+        if(!Files.isDirectory(base))
+            return new ArrayList<>();
+        boolean relative = base.toString().isEmpty();
+        Path root = relative ? Paths.get(".") : base;
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        try(Stream<Path> walk = Files.walk(root)){
+            return walk.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(relative ? root.relativize(p) : p))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Checks all files and writes one row per file to the output. Failures of single files are written as rows with an error.
+     * @param files the ontology files
+     * @param out where the rows are written to (it is not closed)
+     * @throws IOException if writing to the output fails
+     */
+    public void run(List<Path> files, Writer out) throws IOException{
+        ResultWriter writer = new ResultWriter(out);
+        if(this.format == Format.CSV)
+            writer.write(String.join(",", CSV_HEADER));
+        ExecutorService pool = Executors.newWorkStealingPool(this.threads);
+        Semaphore inFlight = new Semaphore(this.threads * 2);
+        //permits are kilobytes to stay in the int range
+        int budget = (int) Math.max(1, Math.min(Integer.MAX_VALUE, this.maxLoadedBytes / 1024));
+        Semaphore loadedKiloBytes = new Semaphore(budget);
+        try {
+            for(Path file : files){
+                int weight = this.loadModel ? (int) Math.min(budget, Math.max(1, size(file) / 1024)) : 0;
+                inFlight.acquire();
+                loadedKiloBytes.acquire(weight);
+                pool.execute(() -> {
+                    try {
+                        writer.write(check(file));
+                    } finally {
+                        loadedKiloBytes.release(weight);
+                        inFlight.release();
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the files", ex);
+        }
+        if(this.statistics != null)
+            this.statistics.save();
+        writer.rethrow();
+        out.flush();
+    }
+
+    /**
+     * Writes results which were computed elsewhere (e.g. {@link SparqlDlExpressivityChecker#sweepNamedGraphs()}) in the format of this batch.
+     * @param results the name (written to the column file) and the checker of each result
+     * @param millis the time of the whole computation, written to each row
+     * @param out where the rows are written to (it is not closed)
+     * @throws IOException if writing to the output fails
+     */
+    public void write(Map<String, ? extends JenaDLExpressivityChecker> results, long millis, Writer out) throws IOException{
+        if(this.format == Format.CSV){
+            out.write(String.join(",", CSV_HEADER));
+            out.write('\n');
+        }
+        for(Map.Entry<String, ? extends JenaDLExpressivityChecker> entry : results.entrySet()){
+            JenaDLExpressivityChecker checker = entry.getValue();
+            out.write(formatRow(entry.getKey(),
+                    checker.getConstructs().stream().map(Enum::name).collect(Collectors.toList()),
+                    checker.getDescriptionLogicName(),
+                    checker.expressibleInLanguages().stream().map(Enum::name).collect(Collectors.toList()),
+                    millis, null));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static long size(Path file){
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Checks a single ontology (e.g. read from standard in) and writes its row to the output.
+     * @param source the ontology, it is closed afterwards
+     * @param out where the row is written to (it is not closed)
+     * @throws IOException if writing to the output fails
+     */
+    public void run(OntologySource source, Writer out) throws IOException{
+        if(this.format == Format.CSV){
+            out.write(String.join(",", CSV_HEADER));
+            out.write('\n');
+        }
+        out.write(check(source.getName() == null ? "-" : source.getName(), source, System.nanoTime(), null));
+        out.write('\n');
+        if(this.statistics != null)
+            this.statistics.save();
+        out.flush();
+    }
+
+    /**
+     * @param file the ontology file, possibly compressed (gzip, bzip2, xz)
+     * @return the formatted row for this file
+     */
+    protected String check(Path file){
+        long start = System.nanoTime();
+        String storeKey = null;
+        OntologySource source;
+        try {
+            if(this.resultStore != null){
+                storeKey = ExpressivityResultStore.key(ExpressivityResultStore.contentHash(file), this.inputLanguage);
+                ExpressivityResultStore.StoredResult stored = this.resultStore.get(storeKey);
+                if(stored != null){
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    LOGGER.info("Use stored result of {}", file);
+                    return formatRow(file.toString(),
+                            stored.getConstructs().stream().map(Enum::name).collect(Collectors.toList()),
+                            stored.getConstructs().stream().map(Object::toString).collect(Collectors.joining()),
+                            stored.getLanguages().stream().map(Enum::name).collect(Collectors.toList()),
+                            millis, null);
+                }
+            }
+            source = OntologySource.open(file, this.inputLanguage);
+            if(isChunked(file, source)){
+                Lang language = source.getLanguage();
+                source.close();
+                return check(file.toString(), () -> {
+                    ChunkedNTriplesDlExpressivityChecker chunked = new ChunkedNTriplesDlExpressivityChecker(file, language);
+                    chunked.setThreads(this.threads);
+                    chunked.setChunkSize(this.chunkSize);
+                    return chunked;
+                }, start, storeKey);
+            }
+        } catch (IOException | RuntimeException ex) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.warn("Could not open {}", file, ex);
+            return formatRow(file.toString(), null, null, null, millis, String.valueOf(ex.getMessage()));
+        }
+        return check(file.toString(), source, start, storeKey);
+    }
+
+    /**
+     * A streamed file is split into chunks if it is an uncompressed N-Triples or N-Quads file larger than one chunk.
+     * @param file the ontology file
+     * @param source the opened file
+     * @return true if the file is checked by a {@link ChunkedNTriplesDlExpressivityChecker}
+     * @throws IOException if the size of the file can not be read
+     */
+    protected boolean isChunked(Path file, OntologySource source) throws IOException{
+        if(this.loadModel || this.chunkSize <= 0 || source.getCompression() != OntologySource.Compression.NONE)
+            return false;
+        Lang language = source.getLanguage();
+        if(!Lang.NTRIPLES.equals(language) && !Lang.NQUADS.equals(language))
+            return false;
+        return Files.size(file) > this.chunkSize;
+    }
+
+    /**
+     * @param name written to the column file
+     * @param source the ontology, it is closed afterwards
+     * @param start start time in nanoseconds
+     * @param storeKey if not null, the result is added to the result store with this key, see {@link ExpressivityResultStore#key(String, Lang)}
+     * @return the formatted row for this ontology
+     */
+    protected String check(String name, OntologySource source, long start, String storeKey){
+        try {
+            return check(name, () -> {
+                if(this.loadModel){
+                    ModelDlExpressivityChecker modelChecker = this.projectModel
+                            ? new ModelDlExpressivityChecker(QueryCatalog.getDefault().getProjection().load(source))
+                            : new ModelDlExpressivityChecker(source);
+                    modelChecker.setParallelism(this.modelParallelism);
+                    modelChecker.setStatistics(this.statistics);
+                    return modelChecker;
+                }
+                return new StreamDlExpressivityChecker(source);
+            }, start, storeKey);
+        } finally {
+            try {
+                source.close();
+            } catch (IOException ex) {
+                LOGGER.debug("Could not close {}", name, ex);
+            }
+        }
+    }
+
+    /**
+     * @param name written to the column file
+     * @param factory creates the checker of this ontology
+     * @param start start time in nanoseconds
+     * @param storeKey if not null, the result is added to the result store with this key
+     * @return the formatted row for this ontology
+     */
+    private String check(String name, CheckerFactory factory, long start, String storeKey){
+        try {
+            JenaDLExpressivityChecker checker = factory.create();
+            for(ExpressivityCheckListener l : this.listeners){
+                checker.addListener(l);
+            }
+            List<Construct> constructs = checker.getConstructs();
+            Collection<Languages> languages = checker.expressibleInLanguages();
+            if(storeKey != null)
+                this.resultStore.put(storeKey, checker);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.info("Checked {} in {} ms", name, millis);
+            return formatRow(name,
+                    constructs.stream().map(Enum::name).collect(Collectors.toList()),
+                    checker.getDescriptionLogicName(),
+                    languages.stream().map(Enum::name).collect(Collectors.toList()),
+                    millis, null);
+        } catch (IOException | RuntimeException ex) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.warn("Could not check {}", name, ex);
+            return formatRow(name, null, null, null, millis, String.valueOf(ex.getMessage()));
+        }
+    }
+
+    private interface CheckerFactory {
+        JenaDLExpressivityChecker create() throws IOException;
+    }
+
+    protected String formatRow(String file, List<String> constructs, String dlName, List<String> languages, long millis, String error){
+        if(this.format == Format.CSV){
+            return String.join(",",
+                    csv(file),
+                    csv(constructs == null ? "" : String.join(" ", constructs)),
+                    csv(dlName == null ? "" : dlName),
+                    csv(languages == null ? "" : String.join(" ", languages)),
+                    Long.toString(millis),
+                    csv(error == null ? "" : error));
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"file\":").append(json(file));
+        if(error == null){
+            sb.append(",\"constructs\":").append(jsonArray(constructs));
+            sb.append(",\"dlName\":").append(json(dlName));
+            sb.append(",\"languages\":").append(jsonArray(languages));
+        }
+        sb.append(",\"millis\":").append(millis);
+        if(error != null)
+            sb.append(",\"error\":").append(json(error));
+        return sb.append("}").toString();
+    }
+
+    static String jsonArray(List<String> values){
+        return values.stream().map(BatchExpressivityChecker::json).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    static String json(String value){
+        StringBuilder sb = new StringBuilder("\"");
+        for(char c : value.toCharArray()){
+            switch(c){
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if(c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append("\"").toString();
+    }
+
+    private static String csv(String value){
+        if(value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r"))
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        return value;
+    }
+
+    /**
+     * Writes complete rows from multiple threads and remembers the first exception.
+     */
+    private static class ResultWriter {
+        private final Writer out;
+        private IOException exception;
+
+        ResultWriter(Writer out) {
+            this.out = out;
+        }
+
+        synchronized void write(String row){
+            if(this.exception != null)
+                return;
+            try {
+                this.out.write(row);
+                this.out.write('\n');
+                this.out.flush();
+            } catch (IOException ex) {
+                this.exception = ex;
+            }
+        }
+
+        synchronized void rethrow() throws IOException{
+            if(this.exception != null)
+                throw this.exception;
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads number of files checked at the same time, default is the number of cores
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public boolean isLoadModel() {
+        return loadModel;
+    }
+
+    /**
+     * @param loadModel if true, each file is loaded into a model and checked with {@link ModelDlExpressivityChecker}.
+     *   Default is false: the files are streamed with {@link StreamDlExpressivityChecker} which needs only little memory.
+     */
+    public void setLoadModel(boolean loadModel) {
+        this.loadModel = loadModel;
+    }
+
+    public boolean isProjectModel() {
+        return projectModel;
+    }
+
+    /**
+     * @param projectModel if true, only the triples which can be matched by the patterns are loaded (only used with {@link #setLoadModel(boolean)}),
+     *   see {@link VocabularyProjection}. The constructs are the same, but the ABox is not kept in memory.
+     */
+    public void setProjectModel(boolean projectModel) {
+        this.projectModel = projectModel;
+    }
+
+    public Lang getInputLanguage() {
+        return inputLanguage;
+    }
+
+    /**
+     * @param inputLanguage the serialization of all files - default null: it is detected from the file name or content of each file
+     */
+    public void setInputLanguage(Lang inputLanguage) {
+        this.inputLanguage = inputLanguage;
+    }
+
+    public ExpressivityResultStore getResultStore() {
+        return resultStore;
+    }
+
+    /**
+     * @param resultStore if not null, each file is hashed first and only checked if the store has no result for its content.
+     *   New results are added to the store. The store is not closed by the batch.
+     */
+    public void setResultStore(ExpressivityResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    public int getModelParallelism() {
+        return modelParallelism;
+    }
+
+    /**
+     * @param modelParallelism number of threads which run the patterns of one model in parallel (only used with {@link #setLoadModel(boolean)}), default 1
+     */
+    public void setModelParallelism(int modelParallelism) {
+        this.modelParallelism = modelParallelism;
+    }
+
+    public PatternStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @param statistics pattern statistics of this corpus which are shared by all files (only used with {@link #setLoadModel(boolean)}).
+     *   They are saved at the end of {@link #run(List, Writer)}.
+     */
+    public void setStatistics(PatternStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param listener is added to the checker of each file
+     */
+    public void addListener(ExpressivityCheckListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public long getMaxLoadedBytes() {
+        return maxLoadedBytes;
+    }
+
+    /**
+     * @param maxLoadedBytes upper bound for the summed file size of all models in memory at the same time (only used with {@link #setLoadModel(boolean)}).
+     *   A file larger than this bound is checked alone.
+     */
+    public void setMaxLoadedBytes(long maxLoadedBytes) {
+        this.maxLoadedBytes = maxLoadedBytes;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize uncompressed N-Triples and N-Quads files larger than this size are split into chunks of this size which are
+     *   parsed by {@link #setThreads(int)} threads, see {@link ChunkedNTriplesDlExpressivityChecker} (not used with {@link #setLoadModel(boolean)}).
+     *   Default 64 MB, zero disables splitting.
+     */
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,199 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks a large N-Triples (or N-Quads) file with multiple threads.
+ * The file is split into chunks at line boundaries, each chunk is memory mapped and parsed by its own
+ * {@link StreamingConstructDetector}. The detectors are merged at the end, thus joins across chunks
+ * (e.g. a restriction blank node whose triples are in different chunks) are found as well.
+ * Blank node labels are scoped to the file and not to the chunk.
+ * @author shertlin
+ */
+public class ChunkedNTriplesDlExpressivityChecker extends JenaDLExpressivityChecker{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedNTriplesDlExpressivityChecker.class);
+
+    public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    protected Path file;
+    protected Lang language;
+    protected int threads = Runtime.getRuntime().availableProcessors();
+    protected long chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @param file the N-Triples or N-Quads file (uncompressed)
+     * @param language {@link Lang#NTRIPLES} or {@link Lang#NQUADS}
+     */
+    public ChunkedNTriplesDlExpressivityChecker(Path file, Lang language) {
+        if(!RDFLanguages.sameLang(language, Lang.NTRIPLES) && !RDFLanguages.sameLang(language, Lang.NQUADS))
+            throw new IllegalArgumentException("Only line based formats (N-Triples, N-Quads) can be split into chunks: " + language);
+        this.file = file;
+        this.language = language;
+    }
+    public ChunkedNTriplesDlExpressivityChecker(Path file) {
+        this(file, RDFLanguages.filenameToLang(file.toString(), Lang.NTRIPLES));
+    }
+
+    @Override
+    protected void checkConstructs() {
+        try(FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)){
+            List<long[]> chunks = split(channel, this.chunkSize);
+            LOGGER.info("Scan {} in {} chunks with {} threads", this.file, chunks.size(), this.threads);
+            UUID document = UUID.randomUUID();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(this.threads, chunks.size())));
+            try {
+                List<Future<StreamingConstructDetector>> futures = new ArrayList<>();
+                for(long[] chunk : chunks){
+                    futures.add(pool.submit(() -> scan(channel, chunk[0], chunk[1], document)));
+                }
+                StreamingConstructDetector merged = new StreamingConstructDetector();
+                for(Future<StreamingConstructDetector> future : futures){
+                    merged.merge(future.get());
+                }
+                merged.finish();
+                for(Construct c : merged.getConstructs()){
+                    addConstruct(c);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while scanning " + this.file, ex);
+            } catch (ExecutionException ex) {
+                if(ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) ex.getCause();
+                throw new IllegalStateException("Could not scan " + this.file, ex.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + this.file, ex);
+        }
+    }
+
+    private StreamingConstructDetector scan(FileChannel channel, long start, long end, UUID document) throws IOException{
+        StreamingConstructDetector detector = new StreamingConstructDetector();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        RDFParser.create()
+                .source(new ByteBufferInputStream(buffer))
+                .lang(this.language)
+                .labelToNode(LabelToNode.createScopeByDocumentHash(document))
+                .parse(detector);
+        return detector;
+    }
+
+    /**
+     * Splits the file into ranges of about the given size which start at the beginning of a line.
+     * @param channel the file
+     * @param chunkSize the size of one chunk (at most 2 GB because one chunk is mapped at once)
+     * @return list of ranges [start, end)
+     * @throws IOException if the file cannot be read
+     */
+    static List<long[]> split(FileChannel channel, long chunkSize) throws IOException{
+        if(chunkSize <= 0 || chunkSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The chunk size has to be between 1 and " + Integer.MAX_VALUE);
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while(start < size){
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+            if(end - start > Integer.MAX_VALUE)
+                throw new IllegalStateException("A line is longer than the maximum chunk size at position " + start);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        //the byte before position could already be a newline
+        long pos = position - 1;
+        while(pos < size){
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if(read <= 0)
+                break;
+            for(int i = 0; i < read; i++){
+                if(buffer.get(i) == '\n')
+                    return pos + i + 1;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(len == 0)
+                return 0;
+            if(!this.buffer.hasRemaining())
+                return -1;
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads number of chunks parsed at the same time, default is the number of cores
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize approximate number of bytes per chunk, default 64 MB
+     */
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
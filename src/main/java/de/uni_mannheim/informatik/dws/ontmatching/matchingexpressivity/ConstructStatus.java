@@ -0,0 +1,20 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+/**
+ * Outcome of the check of one construct in a deadline bounded check.
+ * @author shertlin
+ */
+public enum ConstructStatus {
+    /**
+     * At least one pattern of the construct matches.
+     */
+    PROVEN,
+    /**
+     * None of the patterns of the construct matches.
+     */
+    DISPROVEN,
+    /**
+     * Not all patterns could be checked before the deadline (or they failed).
+     */
+    UNKNOWN
+}
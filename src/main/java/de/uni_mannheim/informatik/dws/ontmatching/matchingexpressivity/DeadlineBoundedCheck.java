@@ -0,0 +1,249 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One asynchronous check of a {@link SparqlDlExpressivityChecker} with an overall deadline.
+ * The batched queries (or ASK queries) run on a pool of {@link SparqlDlExpressivityChecker#getMaxConcurrentQueries()} threads.
+ * A construct is proven as soon as one of its patterns matches and disproven when all of its patterns were answered without a match.
+ * At the deadline the running queries are aborted and all other constructs stay unknown.
+ * @author shertlin
+ */
+class DeadlineBoundedCheck {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeadlineBoundedCheck.class);
+
+    private static final ThreadFactory DAEMON_THREADS = r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setDaemon(true);
+        return t;
+    };
+
+    private final SparqlDlExpressivityChecker checker;
+    private final long deadlineNanos;
+    private final CompletableFuture<PartialExpressivityResult> future = new CompletableFuture<>();
+    private final Map<Construct, ConstructStatus> status = new EnumMap<>(Construct.class);
+    /**
+     * For each construct the patterns which were not answered yet.
+     */
+    private final Map<Construct, Set<String>> openPatterns = new EnumMap<>(Construct.class);
+    private final Map<QueryExecution, Set<Construct>> running = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+    private volatile boolean stopped;
+
+    DeadlineBoundedCheck(SparqlDlExpressivityChecker checker, long deadlineNanos) {
+        this.checker = checker;
+        this.deadlineNanos = deadlineNanos;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, checker.getMaxConcurrentQueries()), DAEMON_THREADS);
+        this.timer = Executors.newSingleThreadScheduledExecutor(DAEMON_THREADS);
+    }
+
+    CompletableFuture<PartialExpressivityResult> start(){
+        List<Construct> undecided = new ArrayList<>();
+        for(Construct c : Construct.values()){
+            List<String> patterns = this.checker.constructToSparqlQuery.getOrDefault(c, Collections.emptyList());
+            if(patterns.isEmpty()){
+                this.status.put(c, ConstructStatus.DISPROVEN);
+            }else{
+                this.status.put(c, ConstructStatus.UNKNOWN);
+                this.openPatterns.put(c, new HashSet<>(patterns));
+                undecided.add(c);
+            }
+        }
+        this.checker.fireCheckStarted();
+        this.future.whenComplete((result, ex) -> shutdown());
+        this.timer.schedule(this::complete, this.deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        //the start itself is a pending task, thus the check does not complete while the tasks are submitted
+        this.pending.incrementAndGet();
+        int batchSize = this.checker.getBatchSize();
+        if(batchSize > 0){
+            for(int i = 0; i < undecided.size(); i += batchSize){
+                List<Construct> batch = undecided.subList(i, Math.min(i + batchSize, undecided.size()));
+                submit(() -> checkBatch(batch));
+            }
+        }else{
+            submitAsk(undecided);
+        }
+        done();
+        return this.future;
+    }
+
+    private void submit(Runnable task){
+        this.pending.incrementAndGet();
+        try {
+            this.workers.execute(() -> {
+                try {
+                    if(!this.stopped)
+                        task.run();
+                } catch (RuntimeException ex) {
+                    if(!this.stopped)
+                        LOGGER.warn("Query failed - the constructs stay unknown", ex);
+                } finally {
+                    done();
+                }
+            });
+        } catch (RuntimeException ex) {
+            //rejected because the check is already finished
+            done();
+        }
+    }
+
+    private void done(){
+        if(this.pending.decrementAndGet() == 0)
+            complete();
+    }
+
+    private void submitAsk(Collection<Construct> constructs){
+        for(Map.Entry<String, Set<Construct>> entry : this.checker.getPatternsFor(constructs).entrySet()){
+            submit(() -> checkPattern(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void checkBatch(List<Construct> constructs){
+        if(isDecided(constructs))
+            return;
+        Query query = this.checker.createBatchQuery(constructs);
+        List<String> names;
+        String cached = this.checker.getCached(query);
+        if(cached != null){
+            names = new ArrayList<>();
+            for(String name : cached.split(" ")){
+                if(!name.isEmpty())
+                    names.add(name);
+            }
+        }else{
+            long start = System.nanoTime();
+            try {
+                names = this.checker.execute(query, this.deadlineNanos, qe -> run(qe, constructs, SparqlDlExpressivityChecker::selectConstructNames), () -> isCancelled(constructs));
+            } catch (QueryExceptionHTTP ex) {
+                if(ex.getResponseCode() <= 0 || this.checker.isTransient(ex) || this.stopped)
+                    throw ex;
+                LOGGER.warn("Batched query was rejected by the endpoint ({}) - fall back to one ASK query per pattern.", ex.getMessage());
+                submitAsk(constructs);
+                return;
+            }
+            this.checker.recordBatch(constructs, names, System.nanoTime() - start);
+            this.checker.putCached(query, String.join(" ", names));
+        }
+        synchronized(this){
+            for(Construct c : constructs){
+                if(names.contains(c.name())){
+                    this.status.put(c, ConstructStatus.PROVEN);
+                }else if(this.status.get(c) != ConstructStatus.PROVEN){
+                    this.status.put(c, ConstructStatus.DISPROVEN);
+                }
+            }
+        }
+    }
+
+    private void checkPattern(String pattern, Set<Construct> constructs){
+        if(isDecided(constructs)){
+            this.checker.skipPattern(pattern, constructs);
+            return;
+        }
+        Query query = this.checker.getQueryCatalog().createAskQuery(pattern, this.checker.getGraph());
+        boolean result;
+        String cached = this.checker.getCached(query);
+        if(cached != null){
+            result = Boolean.parseBoolean(cached);
+        }else{
+            long start = System.nanoTime();
+            try {
+                result = this.checker.execute(query, this.deadlineNanos, qe -> run(qe, constructs, QueryExecution::execAsk), () -> isCancelled(constructs));
+            } catch (RuntimeException ex) {
+                if(isDecided(constructs))
+                    return; // aborted because the constructs were decided by another pattern
+                throw ex;
+            }
+            this.checker.recordPattern(pattern, constructs, result, System.nanoTime() - start);
+            this.checker.putCached(query, Boolean.toString(result));
+        }
+        synchronized(this){
+            for(Construct c : constructs){
+                if(result){
+                    this.status.put(c, ConstructStatus.PROVEN);
+                }else{
+                    Set<String> open = this.openPatterns.get(c);
+                    open.remove(pattern);
+                    if(open.isEmpty() && this.status.get(c) != ConstructStatus.PROVEN)
+                        this.status.put(c, ConstructStatus.DISPROVEN);
+                }
+            }
+        }
+        if(result){
+            for(Map.Entry<QueryExecution, Set<Construct>> other : this.running.entrySet()){
+                if(isDecided(other.getValue()))
+                    other.getKey().abort();
+            }
+        }
+    }
+
+    private <T> T run(QueryExecution qe, Collection<Construct> constructs, Function<QueryExecution, T> action){
+        this.running.put(qe, new HashSet<>(constructs));
+        try {
+            return action.apply(qe);
+        } finally {
+            this.running.remove(qe);
+        }
+    }
+
+    /**
+     * @return true if the result of a query for the constructs is no longer needed (then it is not retried)
+     */
+    private boolean isCancelled(Collection<Construct> constructs){
+        return this.stopped || isDecided(constructs);
+    }
+
+    private synchronized boolean isDecided(Collection<Construct> constructs){
+        for(Construct c : constructs){
+            if(this.status.get(c) == ConstructStatus.UNKNOWN)
+                return false;
+        }
+        return true;
+    }
+
+    private void complete(){
+        PartialExpressivityResult result;
+        synchronized(this){
+            result = new PartialExpressivityResult(this.status);
+        }
+        if(this.future.complete(result)){
+            LOGGER.info("Check finished - unknown constructs: {}", result.getUnknown());
+            if(result.isComplete())
+                this.checker.setCheckedConstructs(result.getProven());
+            this.checker.fireCheckFinished(new ArrayList<>(result.getProven()));
+        }
+    }
+
+    private void shutdown(){
+        this.stopped = true;
+        for(QueryExecution qe : this.running.keySet()){
+            qe.abort();
+        }
+        this.workers.shutdownNow();
+        this.timer.shutdownNow();
+    }
+}
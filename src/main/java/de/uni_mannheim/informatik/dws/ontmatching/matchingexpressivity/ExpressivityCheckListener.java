@@ -0,0 +1,60 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.List;
+import java.util.Set;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * Is notified about the progress of a check. The methods can be called from multiple threads at the same time
+ * and should return quickly. All methods do nothing by default.
+ * @author shertlin
+ * @see JenaDLExpressivityChecker#addListener(ExpressivityCheckListener)
+ */
+public interface ExpressivityCheckListener {
+
+    /**
+     * A check starts.
+     * @param checker the checker
+     */
+    default void checkStarted(JenaDLExpressivityChecker checker) {}
+
+    /**
+     * A pattern was executed.
+     * @param pattern the pattern
+     * @param constructs the constructs it proves
+     * @param hit true if it matched
+     * @param nanos the time it took
+     */
+    default void patternChecked(String pattern, Set<Construct> constructs, boolean hit, long nanos) {}
+
+    /**
+     * A pattern was not executed because all of its constructs were found already (short circuit).
+     * @param pattern the pattern
+     * @param constructs the constructs it proves
+     */
+    default void patternSkipped(String pattern, Set<Construct> constructs) {}
+
+    /**
+     * A construct was found for the first time in this check.
+     * @param construct the construct
+     * @param nanos the time since the start of the check
+     */
+    default void constructFound(Construct construct, long nanos) {}
+
+    /**
+     * A query was sent to an endpoint.
+     * @param endpoint the endpoint
+     * @param nanos the time until the response was read
+     * @param bytes the bytes received
+     * @param success false if the query failed (it may be retried)
+     */
+    default void queryExecuted(String endpoint, long nanos, long bytes, boolean success) {}
+
+    /**
+     * A check finished.
+     * @param checker the checker
+     * @param constructs the constructs found (null if the check failed)
+     * @param nanos the time of the whole check
+     */
+    default void checkFinished(JenaDLExpressivityChecker checker, List<Construct> constructs, long nanos) {}
+}
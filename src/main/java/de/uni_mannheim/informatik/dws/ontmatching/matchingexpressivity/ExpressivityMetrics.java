@@ -0,0 +1,164 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * Collects the metrics of all checks it listens to: latency histograms of checks, queries, patterns and constructs
+ * (time from the start of the check until the construct was found), the number of queries, short circuits and bytes received.
+ * One instance can be shared by many checkers and registered in JMX with {@link #register(String)}.
+ * @author shertlin
+ */
+public class ExpressivityMetrics implements ExpressivityCheckListener, ExpressivityMetricsMXBean {
+
+    private volatile LatencyHistogram checkLatency = new LatencyHistogram();
+    private volatile LatencyHistogram queryLatency = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> patternLatency = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Construct, LatencyHistogram> constructLatency = new ConcurrentHashMap<>();
+    private final LongAdder failedChecks = new LongAdder();
+    private final LongAdder failedQueries = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder patternHits = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+
+    /**
+     * Registers this instance in the platform MBean server.
+     * @param name the value of the name key, e.g. the endpoint
+     * @return the name it is registered with
+     */
+    public ObjectName register(String name){
+        try {
+            ObjectName objectName = new ObjectName(getClass().getPackage().getName() + ":type=ExpressivityMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if(server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException ex) {
+            throw new IllegalStateException("Could not register the metrics in JMX", ex);
+        }
+    }
+
+    @Override
+    public void patternChecked(String pattern, Set<Construct> constructs, boolean hit, long nanos) {
+        this.patternLatency.computeIfAbsent(QueryCatalog.normalizePattern(pattern), k -> new LatencyHistogram()).record(nanos);
+        if(hit)
+            this.patternHits.increment();
+    }
+
+    @Override
+    public void patternSkipped(String pattern, Set<Construct> constructs) {
+        this.shortCircuits.increment();
+    }
+
+    @Override
+    public void constructFound(Construct construct, long nanos) {
+        this.constructLatency.computeIfAbsent(construct, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public void queryExecuted(String endpoint, long nanos, long bytes, boolean success) {
+        this.queryLatency.record(nanos);
+        this.bytesReceived.add(bytes);
+        if(!success)
+            this.failedQueries.increment();
+    }
+
+    @Override
+    public void checkFinished(JenaDLExpressivityChecker checker, List<Construct> constructs, long nanos) {
+        this.checkLatency.record(nanos);
+        if(constructs == null)
+            this.failedChecks.increment();
+    }
+
+    @Override
+    public long getChecks() {
+        return this.checkLatency.snapshot().getCount();
+    }
+
+    @Override
+    public long getFailedChecks() {
+        return this.failedChecks.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getCheckLatency() {
+        return this.checkLatency.snapshot();
+    }
+
+    @Override
+    public long getQueries() {
+        return this.queryLatency.snapshot().getCount();
+    }
+
+    @Override
+    public long getFailedQueries() {
+        return this.failedQueries.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return this.bytesReceived.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getQueryLatency() {
+        return this.queryLatency.snapshot();
+    }
+
+    @Override
+    public long getPatternsChecked() {
+        long count = 0;
+        for(LatencyHistogram h : this.patternLatency.values()){
+            count += h.snapshot().getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getPatternHits() {
+        return this.patternHits.sum();
+    }
+
+    @Override
+    public long getShortCircuits() {
+        return this.shortCircuits.sum();
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getPatternLatency() {
+        Map<String, LatencyHistogram.Snapshot> map = new TreeMap<>();
+        this.patternLatency.forEach((pattern, h) -> map.put(pattern, h.snapshot()));
+        return map;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getConstructLatency() {
+        Map<String, LatencyHistogram.Snapshot> map = new TreeMap<>();
+        this.constructLatency.forEach((c, h) -> map.put(c.name(), h.snapshot()));
+        return map;
+    }
+
+    @Override
+    public void reset() {
+        this.checkLatency = new LatencyHistogram();
+        this.queryLatency = new LatencyHistogram();
+        this.patternLatency.clear();
+        this.constructLatency.clear();
+        this.failedChecks.reset();
+        this.failedQueries.reset();
+        this.bytesReceived.reset();
+        this.patternHits.reset();
+        this.shortCircuits.reset();
+    }
+}
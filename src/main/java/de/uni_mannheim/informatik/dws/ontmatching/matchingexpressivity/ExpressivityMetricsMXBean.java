@@ -0,0 +1,36 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.Map;
+
+/**
+ * The metrics of {@link ExpressivityMetrics} via JMX.
+ * @author shertlin
+ */
+public interface ExpressivityMetricsMXBean {
+
+    long getChecks();
+
+    long getFailedChecks();
+
+    LatencyHistogram.Snapshot getCheckLatency();
+
+    long getQueries();
+
+    long getFailedQueries();
+
+    long getBytesReceived();
+
+    LatencyHistogram.Snapshot getQueryLatency();
+
+    long getPatternsChecked();
+
+    long getPatternHits();
+
+    long getShortCircuits();
+
+    Map<String, LatencyHistogram.Snapshot> getPatternLatency();
+
+    Map<String, LatencyHistogram.Snapshot> getConstructLatency();
+
+    void reset();
+}
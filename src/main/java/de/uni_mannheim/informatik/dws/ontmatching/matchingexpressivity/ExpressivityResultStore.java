@@ -0,0 +1,319 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.jena.riot.Lang;
+import org.semanticweb.owlapi.util.Construct;
+import org.semanticweb.owlapi.util.Languages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent store of check results, keyed by the SHA-256 hash of the ontology content (and its serialization if it is given,
+ * see {@link #key(String, Lang)}) and the version of the query catalog
+ * (see {@link QueryCatalog#getVersion()}). An unchanged ontology is not parsed again - only hashed.
+ * <p>
+ * Each result is one line of a single file: <code>hash catalogVersion constructMask minimalLanguages</code>.
+ * New results are appended, all entries are kept in memory in least recently used order.
+ * If there are more than {@link #getMaxEntries()} entries, the least recently used ones are dropped. On {@link #close()}
+ * (or if the file has grown to twice the number of entries) the file is rewritten with the entries in LRU order,
+ * thus the order of use survives restarts.
+ * <p>
+ * All methods are thread safe. The file is locked while the store is open, thus it can not be used by two processes at the same time.
+ * @author shertlin
+ */
+public class ExpressivityResultStore implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpressivityResultStore.class);
+
+    protected final Path file;
+    protected final String catalogVersion;
+    protected long maxEntries = 1_000_000;
+
+    private final LinkedHashMap<String, StoredResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private Writer log;
+    private long logLines;
+    private boolean reordered;
+
+    /**
+     * @param file the store file - it is created if it does not exist
+     * @param catalog results of other catalog versions are ignored (and dropped when the file is rewritten)
+     * @throws IOException if the file can not be read
+     */
+    public ExpressivityResultStore(Path file, QueryCatalog catalog) throws IOException {
+        this.file = file;
+        this.catalogVersion = catalog.getVersion();
+        Path parent = file.toAbsolutePath().getParent();
+        if(parent != null)
+            Files.createDirectories(parent);
+        this.lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = this.lockChannel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            fileLock = null;
+        }
+        this.lock = fileLock;
+        if(this.lock == null){
+            this.lockChannel.close();
+            throw new IllegalStateException("Result store " + file + " is already open (in this or another process)");
+        }
+        try {
+            load();
+            this.log = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException ex) {
+            this.lock.release();
+            this.lockChannel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param file the store file - it is created if it does not exist
+     * @throws IOException if the file can not be read
+     */
+    public ExpressivityResultStore(Path file) throws IOException {
+        this(file, QueryCatalog.getDefault());
+    }
+
+    private void load() throws IOException {
+        try(BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)){
+            String line;
+            while((line = reader.readLine()) != null){
+                this.logLines++;
+                String[] parts = line.split(" ", -1);
+                if(parts.length != 4 || !parts[1].equals(this.catalogVersion))
+                    continue;
+                try {
+                    this.entries.put(parts[0], new StoredResult(Integer.parseInt(parts[2], 16), parseLanguages(parts[3])));
+                } catch (IllegalArgumentException ex) {
+                    LOGGER.warn("Skip invalid line in result store {}: {}", this.file, line);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+        evict();
+        LOGGER.info("Loaded {} results from {}", this.entries.size(), this.file);
+    }
+
+    private static List<Languages> parseLanguages(String text){
+        List<Languages> languages = new ArrayList<>();
+        for(String name : text.split(",")){
+            if(!name.isEmpty())
+                languages.add(Languages.valueOf(name));
+        }
+        return Collections.unmodifiableList(languages);
+    }
+
+    /**
+     * @param contentHash the hash of the ontology (see {@link #contentHash(Path)}) or its {@link #key(String, Lang)}
+     * @return the stored result or null if the ontology was not checked with this catalog version
+     */
+    public synchronized StoredResult get(String contentHash){
+        StoredResult result = this.entries.get(contentHash);
+        if(result != null)
+            this.reordered = true;
+        return result;
+    }
+
+    /**
+     * Stores a result. Afterwards the least recently used entries are dropped if the store is too large.
+     * @param contentHash the hash of the ontology (see {@link #contentHash(Path)}) or its {@link #key(String, Lang)}
+     * @param constructMask the trimmed constructs as bitmask, see {@link LanguageLattice}
+     * @param minimalLanguages the minimal languages of the constructs
+     */
+    public synchronized void put(String contentHash, int constructMask, Collection<Languages> minimalLanguages){
+        StoredResult result = new StoredResult(constructMask, Collections.unmodifiableList(new ArrayList<>(minimalLanguages)));
+        this.entries.put(contentHash, result);
+        try {
+            this.log.write(format(contentHash, result));
+            this.log.flush();
+            this.logLines++;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write result store " + this.file, ex);
+        }
+        evict();
+        if(this.logLines > 2 * Math.max(this.entries.size(), 1024))
+            rewrite();
+    }
+
+    /**
+     * Stores the result of a checker.
+     * @param contentHash the hash of the ontology (see {@link #contentHash(Path)}) or its {@link #key(String, Lang)}
+     * @param checker a checker of the ontology (the check is run if it did not run yet)
+     */
+    public void put(String contentHash, JenaDLExpressivityChecker checker){
+        put(contentHash, checker.getConstructMask(), checker.expressibleInLanguages());
+    }
+
+    private String format(String contentHash, StoredResult result){
+        StringBuilder sb = new StringBuilder();
+        sb.append(contentHash).append(' ').append(this.catalogVersion).append(' ').append(Integer.toHexString(result.constructMask)).append(' ');
+        for(int i = 0; i < result.languages.size(); i++){
+            if(i > 0)
+                sb.append(',');
+            sb.append(result.languages.get(i).name());
+        }
+        return sb.append('\n').toString();
+    }
+
+    private void evict(){
+        while(this.entries.size() > this.maxEntries){
+            String eldest = this.entries.keySet().iterator().next();
+            this.entries.remove(eldest);
+            this.reordered = true;
+        }
+    }
+
+    /**
+     * Writes all entries in LRU order to a new file which atomically replaces the old one.
+     */
+    private void rewrite(){
+        try {
+            this.log.close();
+            Path temp = Files.createTempFile(this.file.toAbsolutePath().getParent(), "results", ".tmp");
+            try(Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)){
+                for(Map.Entry<String, StoredResult> entry : this.entries.entrySet()){
+                    out.write(format(entry.getKey(), entry.getValue()));
+                }
+            }
+            try {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            this.logLines = this.entries.size();
+            this.reordered = false;
+            this.log = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not rewrite result store " + this.file, ex);
+        }
+    }
+
+    /**
+     * @return number of stored results
+     */
+    public synchronized int size(){
+        return this.entries.size();
+    }
+
+    /**
+     * Rewrites the file if entries were used or dropped (to keep the LRU order) and releases the lock.
+     * @throws IOException if the file can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(this.log == null)
+            return;
+        try {
+            if(this.reordered || this.logLines != this.entries.size())
+                rewrite();
+            this.log.close();
+            this.log = null;
+        } finally {
+            this.lock.release();
+            this.lockChannel.close();
+        }
+    }
+
+    /**
+     * The same content can be checked with different results if its serialization is given instead of detected
+     * (e.g. a Turtle file forced to be parsed as N-Triples), thus a given serialization is part of the key.
+     * @param contentHash the hash of the ontology (see {@link #contentHash(Path)}) or its {@link #key(String, Lang)}
+     * @param language the serialization the ontology is parsed with, null if it is detected from the file name or content
+     * @return the key of the result in the store
+     */
+    public static String key(String contentHash, Lang language){
+        return language == null ? contentHash : contentHash + "@" + language.getName().replace(' ', '_');
+    }
+
+    /**
+     * @param file the ontology file (the bytes as stored, i.e. compressed files are not decompressed)
+     * @return the SHA-256 hash of the content
+     * @throws IOException if the file can not be read
+     */
+    public static String contentHash(Path file) throws IOException {
+        return Sha256.hash(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public synchronized long getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @param maxEntries maximum number of stored results, default one million (about 100 MB on disk)
+     */
+    public synchronized void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    /**
+     * The stored result of one ontology.
+     */
+    public static class StoredResult {
+        private final int constructMask;
+        private final List<Languages> languages;
+
+        StoredResult(int constructMask, List<Languages> languages) {
+            this.constructMask = constructMask;
+            this.languages = languages;
+        }
+
+        /**
+         * @return the trimmed constructs as bitmask, see {@link LanguageLattice}
+         */
+        public int getConstructMask() {
+            return constructMask;
+        }
+
+        /**
+         * @return the trimmed constructs in their natural order
+         */
+        public Set<Construct> getConstructs() {
+            Set<Construct> constructs = new TreeSet<>();
+            for(Construct c : Construct.values()){
+                if((this.constructMask & (1 << c.ordinal())) != 0)
+                    constructs.add(c);
+            }
+            return constructs;
+        }
+
+        /**
+         * @return the minimal languages
+         */
+        public List<Languages> getLanguages() {
+            return languages;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.apache.jena.atlas.web.ContentType;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A resident HTTP service which checks uploaded ontologies and endpoints, thus the JVM startup is paid only once.
+ * <ul>
+ * <li><code>POST /check</code> with the ontology as body - the serialization is taken from the parameter lang or the Content-Type (default RDF/XML)</li>
+ * <li><code>GET /check?endpoint=...&amp;graph=...</code> checks a SPARQL endpoint - only endpoints given to {@link #setAllowedEndpoints(Collection)}
+ * are checked (none by default), otherwise the server could be used to send requests to any URL</li>
+ * <li><code>GET /health</code></li>
+ * </ul>
+ * The answer is a JSON object with constructs, dlName, languages and millis.
+ * Identical concurrent requests are computed only once. Results of uploads are kept in a bounded cache keyed by the hash of the content
+ * (the header X-Cache is HIT, MISS or COALESCED). Results of endpoints are not cached because the data of an endpoint can change.
+ * The checks run on a pool of worker threads with a bounded queue - if it is full, the request is answered with 503.
+ * At most {@link #setMaxRequests(int) maxRequests} requests are handled at the same time (including the ones which read their upload
+ * or wait for a check), further requests are answered with 503 before their body is read.
+ * @author shertlin
+ */
+public class ExpressivityServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpressivityServer.class);
+    private static final int REJECTING_THREADS = 4;
+
+    protected int threads = Runtime.getRuntime().availableProcessors();
+    protected int queueSize = 1000;
+    protected int maxRequests = 64;
+    protected long maxUploadBytes = 64L * 1024 * 1024;
+    protected int maxCachedResults = 10000;
+    protected Duration requestTimeout = Duration.ofMinutes(5);
+    protected Consumer<SparqlDlExpressivityChecker> endpointConfiguration = c -> {};
+    protected Set<String> allowedEndpoints = Collections.emptySet();
+
+    private HttpServer server;
+    private ThreadPoolExecutor workers;
+    private ThreadPoolExecutor httpThreads;
+    private Semaphore admission;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, String> cache = new LinkedHashMap<String, String>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxCachedResults;
+        }
+    };
+    private final AtomicLong computations = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * Starts the server.
+     * @param address the address to listen on, e.g. new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080) to accept only local connections
+     * @return this server
+     * @throws IOException if the server cannot be started
+     */
+    public ExpressivityServer start(InetSocketAddress address) throws IOException {
+        this.workers = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, this.queueSize)), threadFactory("expressivity-worker"));
+        this.admission = new Semaphore(Math.max(1, this.maxRequests));
+        //a few more threads than admitted requests, thus rejected requests are answered without waiting
+        int httpPoolSize = Math.max(1, this.maxRequests) + REJECTING_THREADS;
+        this.httpThreads = new ThreadPoolExecutor(httpPoolSize, httpPoolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(httpPoolSize), threadFactory("expressivity-http"));
+        this.httpThreads.allowCoreThreadTimeOut(true);
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(this.httpThreads);
+        this.server.createContext("/check", this::handleCheck);
+        this.server.createContext("/health", exchange -> send(exchange, 200, "{\"status\":\"ok\"}", null));
+        this.server.start();
+        LOGGER.info("Expressivity server listens on port {}", getPort());
+        return this;
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if(this.server != null){
+            this.server.stop(0);
+            this.workers.shutdownNow();
+            this.httpThreads.shutdownNow();
+            this.server = null;
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name){
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private void handleCheck(HttpExchange exchange) throws IOException {
+        boolean admitted = this.admission.tryAcquire();
+        try {
+            if(!admitted || this.workers.getQueue().remainingCapacity() == 0){
+                //the body is not read
+                try {
+                    send(exchange, 503, error("Too many requests"), null);
+                } finally {
+                    exchange.close();
+                }
+                return;
+            }
+            check(exchange);
+        } finally {
+            if(admitted)
+                this.admission.release();
+        }
+    }
+
+    private void check(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> params = parseParameters(exchange.getRequestURI().getRawQuery());
+            String key;
+            Supplier<JenaDLExpressivityChecker> checker;
+            boolean cacheable;
+            if("POST".equalsIgnoreCase(exchange.getRequestMethod())){
+                String length = exchange.getRequestHeaders().getFirst("Content-Length");
+                byte[] body = length != null && Long.parseLong(length.trim()) > this.maxUploadBytes ? null : readBody(exchange.getRequestBody());
+                if(body == null){
+                    send(exchange, 413, error("Upload is larger than " + this.maxUploadBytes + " bytes"), null);
+                    return;
+                }
+                Lang lang = getLang(params.get("lang"), exchange.getRequestHeaders().getFirst("Content-Type"));
+                key = lang.getName() + ":" + Sha256.hash(body);
+                checker = () -> new UploadChecker(body, lang);
+                cacheable = true;
+            }else if(params.containsKey("endpoint")){
+                String endpoint = params.get("endpoint");
+                if(!isAllowed(endpoint)){
+                    send(exchange, 403, error("Endpoint " + endpoint + " is not allowed"), null);
+                    return;
+                }
+                String graph = params.get("graph");
+                key = "endpoint:" + endpoint + "\n" + (graph == null ? "" : graph);
+                checker = () -> {
+                    SparqlDlExpressivityChecker c = new SparqlDlExpressivityChecker(endpoint, graph);
+                    this.endpointConfiguration.accept(c);
+                    return c;
+                };
+                cacheable = false;
+            }else{
+                send(exchange, 400, error("POST an ontology or give the parameter endpoint"), null);
+                return;
+            }
+            String[] cacheStatus = new String[1];
+            CompletableFuture<String> result = computeOnce(key, () -> toJson(checker.get()), cacheable, cacheStatus);
+            send(exchange, 200, result.get(this.requestTimeout.toMillis(), TimeUnit.MILLISECONDS), cacheStatus[0]);
+        } catch (RejectedExecutionException ex) {
+            send(exchange, 503, error("Too many requests"), null);
+        } catch (TimeoutException ex) {
+            send(exchange, 504, error("The check takes longer than " + this.requestTimeout), null);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            int code = cause instanceof RiotException || cause instanceof IllegalArgumentException ? 400
+                    : cause instanceof QueryExceptionHTTP ? 502 : 500;
+            if(code == 500)
+                LOGGER.warn("Check failed", cause);
+            send(exchange, code, error(String.valueOf(cause.getMessage())), null);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, error("Server shuts down"), null);
+        } catch (RuntimeException ex) {
+            send(exchange, 400, error(String.valueOf(ex.getMessage())), null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isAllowed(String endpoint){
+        return this.allowedEndpoints.contains("*") || this.allowedEndpoints.contains(endpoint);
+    }
+
+    /**
+     * Returns the result for the key: from the cache, from a running computation of the same key, or from a new computation on the worker pool.
+     * @param key identifies the request
+     * @param computation computes the result
+     * @param cacheable if the result is kept in the cache
+     * @param cacheStatus element 0 is set to HIT, COALESCED or MISS
+     * @return the future result
+     * @throws RejectedExecutionException if the queue of the workers is full
+     */
+    CompletableFuture<String> computeOnce(String key, Supplier<String> computation, boolean cacheable, String[] cacheStatus){
+        String cached = getCached(key, cacheable);
+        if(cached != null){
+            cacheStatus[0] = "HIT";
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<String> own = new CompletableFuture<>();
+        CompletableFuture<String> running = this.inFlight.putIfAbsent(key, own);
+        if(running != null){
+            this.coalesced.incrementAndGet();
+            cacheStatus[0] = "COALESCED";
+            return running;
+        }
+        //the computation may have finished between the lookup in the cache and the registration
+        cached = getCached(key, cacheable);
+        if(cached != null){
+            this.inFlight.remove(key, own);
+            own.complete(cached);
+            cacheStatus[0] = "HIT";
+            return own;
+        }
+        cacheStatus[0] = "MISS";
+        try {
+            this.workers.execute(() -> {
+                //a completed future must never be visible in inFlight, otherwise a later request gets its (stale) result
+                String result;
+                try {
+                    result = computation.get();
+                } catch (RuntimeException | Error ex) {
+                    this.inFlight.remove(key, own);
+                    own.completeExceptionally(ex);
+                    return;
+                }
+                this.computations.incrementAndGet();
+                if(cacheable){
+                    synchronized(this.cache){
+                        this.cache.put(key, result);
+                    }
+                }
+                this.inFlight.remove(key, own);
+                own.complete(result);
+            });
+        } catch (RejectedExecutionException ex) {
+            this.inFlight.remove(key, own);
+            own.completeExceptionally(ex);
+            throw ex;
+        }
+        return own;
+    }
+
+    private String getCached(String key, boolean cacheable){
+        if(!cacheable)
+            return null;
+        String cached;
+        synchronized(this.cache){
+            cached = this.cache.get(key);
+        }
+        if(cached != null)
+            this.cacheHits.incrementAndGet();
+        return cached;
+    }
+
+    private static String toJson(JenaDLExpressivityChecker checker){
+        long start = System.nanoTime();
+        String constructs = BatchExpressivityChecker.jsonArray(checker.getConstructs().stream().map(Enum::name).collect(Collectors.toList()));
+        String languages = BatchExpressivityChecker.jsonArray(checker.expressibleInLanguages().stream().map(Enum::name).collect(Collectors.toList()));
+        return "{\"constructs\":" + constructs
+                + ",\"dlName\":" + BatchExpressivityChecker.json(checker.getDescriptionLogicName())
+                + ",\"languages\":" + languages
+                + ",\"millis\":" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "}";
+    }
+
+    private static String error(String message){
+        return "{\"error\":" + BatchExpressivityChecker.json(message) + "}";
+    }
+
+    private static Lang getLang(String langParam, String contentType){
+        if(langParam != null){
+            Lang lang = RDFLanguages.nameToLang(langParam);
+            if(lang == null)
+                throw new IllegalArgumentException("Unknown language " + langParam);
+            return lang;
+        }
+        if(contentType != null){
+            Lang lang = RDFLanguages.contentTypeToLang(ContentType.create(contentType).getContentType());
+            if(lang != null)
+                return lang;
+        }
+        return Lang.RDFXML;
+    }
+
+    private byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[65536];
+        int read;
+        while((read = in.read(buffer)) != -1){
+            if(out.size() + read > this.maxUploadBytes)
+                return null;
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> parseParameters(String raw) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if(raw == null || raw.isEmpty())
+            return params;
+        for(String pair : raw.split("&")){
+            int eq = pair.indexOf('=');
+            if(eq > 0)
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int code, String json, String cacheStatus) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if(cacheStatus != null)
+            exchange.getResponseHeaders().set("X-Cache", cacheStatus);
+        exchange.sendResponseHeaders(code, body.length);
+        try(OutputStream os = exchange.getResponseBody()){
+            os.write(body);
+        }
+    }
+
+    /**
+     * Checks an uploaded ontology in one streaming pass.
+     */
+    private static class UploadChecker extends JenaDLExpressivityChecker {
+        private final byte[] content;
+        private final Lang lang;
+
+        UploadChecker(byte[] content, Lang lang) {
+            this.content = content;
+            this.lang = lang;
+        }
+
+        @Override
+        protected void checkConstructs() {
+            StreamingConstructDetector detector = new StreamingConstructDetector();
+            RDFParser.source(new ByteArrayInputStream(this.content)).lang(this.lang).parse(detector);
+            for(Construct c : detector.getConstructs()){
+                addConstruct(c);
+            }
+        }
+    }
+
+    /**
+     * @return number of checks which were computed
+     */
+    public long getComputations() {
+        return computations.get();
+    }
+
+    /**
+     * @return number of requests which waited for the computation of an identical request
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return number of requests answered from the cache
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @param threads number of checks computed at the same time, default is the number of cores
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param queueSize number of checks waiting for a worker before requests are rejected, default 1000
+     */
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @param maxRequests number of requests handled at the same time (each may buffer an upload of up to maxUploadBytes),
+     *   further requests are answered with 503, default 64 - applies on {@link #start(InetSocketAddress)}
+     */
+    public void setMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    /**
+     * @param maxUploadBytes larger uploads are rejected with 413, default 64 MB
+     */
+    public void setMaxUploadBytes(long maxUploadBytes) {
+        this.maxUploadBytes = maxUploadBytes;
+    }
+
+    /**
+     * @param maxCachedResults number of results of uploads kept in the cache (least recently used are removed), default 10000
+     */
+    public void setMaxCachedResults(int maxCachedResults) {
+        this.maxCachedResults = maxCachedResults;
+    }
+
+    /**
+     * @param requestTimeout time a request waits for its check before it is answered with 504 (the check continues), default 5 minutes
+     */
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * @param endpointConfiguration applied to each endpoint checker, e.g. to set the batch size, timeout or cache
+     */
+    public void setEndpointConfiguration(Consumer<SparqlDlExpressivityChecker> endpointConfiguration) {
+        this.endpointConfiguration = endpointConfiguration;
+    }
+
+    /**
+     * @param allowedEndpoints the endpoint URLs which may be checked (compared exactly), "*" allows any URL - default none,
+     *   other endpoints are answered with 403
+     */
+    public void setAllowedEndpoints(Collection<String> allowedEndpoints) {
+        this.allowedEndpoints = new HashSet<>(allowedEndpoints);
+    }
+}
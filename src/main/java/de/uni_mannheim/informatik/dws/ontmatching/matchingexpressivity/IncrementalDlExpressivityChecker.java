@@ -0,0 +1,467 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphEvents;
+import org.apache.jena.graph.GraphListener;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpFilter;
+import org.apache.jena.sparql.algebra.op.OpJoin;
+import org.apache.jena.sparql.algebra.op.OpSequence;
+import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the constructs of a (changing) model up to date.
+ * The checker registers itself as listener on the graph of the model and maintains for each pattern
+ * the number of its matches. Adding or deleting a triple only evaluates the patterns with this triple bound,
+ * thus the constructs and languages are always current without running all patterns again.
+ * <p>
+ * Only the triples which can be part of a match (e.g. with an OWL predicate) are mirrored in a small
+ * projection graph. This makes duplicate adds and deletes of missing triples (which are still notified by Jena)
+ * detectable. Patterns which are not a plain conjunction of triple patterns and filters
+ * (e.g. an additional catalog pattern with OPTIONAL) are evaluated again on the model after a change.
+ * <p>
+ * Call {@link #close()} to unregister the listener.
+ * @author shertlin
+ */
+public class IncrementalDlExpressivityChecker extends JenaDLExpressivityChecker implements GraphListener, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalDlExpressivityChecker.class);
+
+    protected Model m;
+
+    private Graph projection;
+    private List<PatternState> states;
+    private Map<Node, List<TriplePattern>> patternsByPredicate;
+    private List<TriplePattern> patternsWithVariablePredicate;
+    private boolean hasNonConjunctivePatterns;
+
+    public IncrementalDlExpressivityChecker(Model m) {
+        this.m = m;
+        initialize();
+        this.m.getGraph().getEventManager().register(this);
+    }
+
+    @Override
+    public synchronized void setQueryCatalog(QueryCatalog catalog) {
+        super.setQueryCatalog(catalog);
+        initialize();
+    }
+
+    /**
+     * Unregisters the listener from the graph of the model. The constructs are not updated anymore.
+     */
+    @Override
+    public void close() {
+        this.m.getGraph().getEventManager().unregister(this);
+    }
+
+    @Override
+    protected synchronized void checkConstructs() {
+        for(PatternState state : this.states){
+            if(state.triples == null && state.dirty){
+                state.matches = ask(state.op, this.m.getGraph()) ? 1 : 0;
+                state.dirty = false;
+            }
+            if(state.matches > 0){
+                for(Construct c : state.constructs){
+                    addConstruct(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param pattern the pattern
+     * @return the number of matches of the pattern in the model (for patterns which are not conjunctive: 1 if it matches and 0 otherwise)
+     */
+    public synchronized long getMatchCount(String pattern){
+        String normalized = QueryCatalog.normalizePattern(pattern);
+        for(PatternState state : this.states){
+            if(state.pattern.equals(normalized)){
+                if(state.triples == null && state.dirty){
+                    state.matches = ask(state.op, this.m.getGraph()) ? 1 : 0;
+                    state.dirty = false;
+                }
+                return state.matches;
+            }
+        }
+        throw new IllegalArgumentException("Pattern is not part of the catalog: " + pattern);
+    }
+
+    /**
+     * Builds the index of triple patterns, the projection of the model and the initial match counts.
+     */
+    private synchronized void initialize(){
+        this.states = new ArrayList<>();
+        this.patternsByPredicate = new HashMap<>();
+        this.patternsWithVariablePredicate = new ArrayList<>();
+        this.hasNonConjunctivePatterns = false;
+        for(Map.Entry<String, Set<Construct>> entry : this.patternToConstructs.entrySet()){
+            Op op = this.catalog.getAlgebra(entry.getKey());
+            List<Triple> triples = new ArrayList<>();
+            PatternState state = new PatternState(entry.getKey(), op, entry.getValue(), collectTriples(op, triples) ? triples : null);
+            this.states.add(state);
+            if(state.triples == null){
+                this.hasNonConjunctivePatterns = true;
+                continue;
+            }
+            for(Triple triple : triples){
+                TriplePattern tp = new TriplePattern(state, triple);
+                if(tp.triple.getPredicate().isConcrete()){
+                    this.patternsByPredicate.computeIfAbsent(tp.triple.getPredicate(), k -> new ArrayList<>()).add(tp);
+                }else{
+                    this.patternsWithVariablePredicate.add(tp);
+                }
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Copies the relevant triples of the model to the projection and counts all matches from scratch.
+     */
+    private synchronized void rebuild(){
+        Graph graph = this.m.getGraph();
+        this.projection = Factory.createGraphMem();
+        if(this.patternsWithVariablePredicate.isEmpty()){
+            for(Node predicate : this.patternsByPredicate.keySet()){
+                addRelevant(graph.find(Node.ANY, predicate, Node.ANY));
+            }
+        }else{
+            addRelevant(graph.find(Node.ANY, Node.ANY, Node.ANY));
+        }
+        for(PatternState state : this.states){
+            if(state.triples == null){
+                state.dirty = true;
+            }else{
+                state.matches = count(state.op, this.projection);
+            }
+        }
+        LOGGER.debug("Projection contains {} of {} triples", this.projection.size(), graph.size());
+        resetConstructs();
+    }
+
+    private void addRelevant(ExtendedIterator<Triple> it){
+        try {
+            while(it.hasNext()){
+                Triple t = it.next();
+                if(!getTriplePatterns(t).isEmpty())
+                    this.projection.add(t);
+            }
+        } finally {
+            it.close();
+        }
+    }
+
+    protected synchronized void added(Triple t){
+        List<TriplePattern> candidates = getTriplePatterns(t);
+        if(candidates.isEmpty() || this.projection.contains(t)){
+            nonConjunctiveChanged();
+            return;
+        }
+        this.projection.add(t);
+        for(PatternState state : getStates(candidates)){
+            state.matches += countMatchesWith(state, t);
+        }
+        changed();
+    }
+
+    protected synchronized void deleted(Triple t){
+        List<TriplePattern> candidates = getTriplePatterns(t);
+        if(candidates.isEmpty() || !this.projection.contains(t)){
+            nonConjunctiveChanged();
+            return;
+        }
+        //the matches are counted before the triple is removed from the projection
+        for(PatternState state : getStates(candidates)){
+            state.matches -= countMatchesWith(state, t);
+        }
+        this.projection.delete(t);
+        changed();
+    }
+
+    private void nonConjunctiveChanged(){
+        if(this.hasNonConjunctivePatterns)
+            changed();
+    }
+
+    private void changed(){
+        for(PatternState state : this.states){
+            if(state.triples == null)
+                state.dirty = true;
+        }
+        resetConstructs();
+    }
+
+    /**
+     * @param t the triple
+     * @return all triple patterns (of conjunctive patterns) which the triple matches
+     */
+    private List<TriplePattern> getTriplePatterns(Triple t){
+        List<TriplePattern> candidates = new ArrayList<>();
+        for(TriplePattern tp : this.patternsByPredicate.getOrDefault(t.getPredicate(), Collections.emptyList())){
+            if(unify(tp.triple, t) != null)
+                candidates.add(tp);
+        }
+        for(TriplePattern tp : this.patternsWithVariablePredicate){
+            if(unify(tp.triple, t) != null)
+                candidates.add(tp);
+        }
+        return candidates;
+    }
+
+    private static Set<PatternState> getStates(List<TriplePattern> candidates){
+        Set<PatternState> affected = new LinkedHashSet<>();
+        for(TriplePattern tp : candidates){
+            affected.add(tp.state);
+        }
+        return affected;
+    }
+
+    /**
+     * Counts the matches of the pattern in the projection which use the given triple.
+     * The pattern is evaluated once for each of its triple patterns bound to the triple,
+     * a match which uses the triple more than once is counted only once.
+     */
+    private long countMatchesWith(PatternState state, Triple t){
+        Set<Map<Var, Node>> matches = new HashSet<>();
+        for(Triple tp : state.triples){
+            Binding binding = unify(tp, t);
+            if(binding == null)
+                continue;
+            QueryIterator it = Algebra.exec(Substitute.substitute(state.op, binding), this.projection);
+            try {
+                while(it.hasNext()){
+                    Map<Var, Node> match = toMap(binding);
+                    match.putAll(toMap(it.next()));
+                    matches.add(match);
+                }
+            } finally {
+                it.close();
+            }
+        }
+        return matches.size();
+    }
+
+    private static Map<Var, Node> toMap(Binding binding){
+        Map<Var, Node> map = new HashMap<>();
+        Iterator<Var> vars = binding.vars();
+        while(vars.hasNext()){
+            Var v = vars.next();
+            map.put(v, binding.get(v));
+        }
+        return map;
+    }
+
+    /**
+     * @param pattern triple pattern
+     * @param t concrete triple
+     * @return the binding of the variables of the pattern such that it matches the triple, or null if it does not match
+     */
+    private static Binding unify(Triple pattern, Triple t){
+        BindingMap binding = BindingFactory.create();
+        if(unify(pattern.getSubject(), t.getSubject(), binding) &&
+                unify(pattern.getPredicate(), t.getPredicate(), binding) &&
+                unify(pattern.getObject(), t.getObject(), binding))
+            return binding;
+        return null;
+    }
+
+    private static boolean unify(Node pattern, Node node, BindingMap binding){
+        if(!Var.isVar(pattern))
+            return pattern.equals(node);
+        Var v = Var.alloc(pattern);
+        Node bound = binding.get(v);
+        if(bound == null){
+            binding.add(v, node);
+            return true;
+        }
+        return bound.equals(node);
+    }
+
+    /**
+     * @return true if the op consists only of basic graph patterns, joins and filters (without EXISTS).
+     *   Then each match corresponds to exactly one set of triples and the triple patterns are added to the list.
+     */
+    private static boolean collectTriples(Op op, List<Triple> triples){
+        if(op instanceof OpBGP){
+            triples.addAll(((OpBGP) op).getPattern().getList());
+            return true;
+        }
+        if(op instanceof OpFilter){
+            for(Expr e : ((OpFilter) op).getExprs()){
+                if(containsExists(e))
+                    return false;
+            }
+            return collectTriples(((OpFilter) op).getSubOp(), triples);
+        }
+        if(op instanceof OpJoin){
+            return collectTriples(((OpJoin) op).getLeft(), triples) && collectTriples(((OpJoin) op).getRight(), triples);
+        }
+        if(op instanceof OpSequence){
+            for(Op sub : ((OpSequence) op).getElements()){
+                if(!collectTriples(sub, triples))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean containsExists(Expr e){
+        if(e instanceof ExprFunctionOp)
+            return true;
+        if(e.isFunction()){
+            for(Expr arg : e.getFunction().getArgs()){
+                if(containsExists(arg))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static long count(Op op, Graph graph){
+        long count = 0;
+        QueryIterator it = Algebra.exec(op, graph);
+        try {
+            while(it.hasNext()){
+                it.next();
+                count++;
+            }
+        } finally {
+            it.close();
+        }
+        return count;
+    }
+
+    private static boolean ask(Op op, Graph graph){
+        QueryIterator it = Algebra.exec(op, graph);
+        try {
+            return it.hasNext();
+        } finally {
+            it.close();
+        }
+    }
+
+    @Override
+    public void notifyAddTriple(Graph g, Triple t) {
+        added(t);
+    }
+
+    @Override
+    public void notifyAddArray(Graph g, Triple[] triples) {
+        for(Triple t : triples){
+            added(t);
+        }
+    }
+
+    @Override
+    public void notifyAddList(Graph g, List<Triple> triples) {
+        for(Triple t : triples){
+            added(t);
+        }
+    }
+
+    @Override
+    public void notifyAddIterator(Graph g, Iterator<Triple> it) {
+        while(it.hasNext()){
+            added(it.next());
+        }
+    }
+
+    @Override
+    public void notifyAddGraph(Graph g, Graph added) {
+        notifyAddIterator(g, added.find(Node.ANY, Node.ANY, Node.ANY));
+    }
+
+    @Override
+    public void notifyDeleteTriple(Graph g, Triple t) {
+        deleted(t);
+    }
+
+    @Override
+    public void notifyDeleteList(Graph g, List<Triple> triples) {
+        for(Triple t : triples){
+            deleted(t);
+        }
+    }
+
+    @Override
+    public void notifyDeleteArray(Graph g, Triple[] triples) {
+        for(Triple t : triples){
+            deleted(t);
+        }
+    }
+
+    @Override
+    public void notifyDeleteIterator(Graph g, Iterator<Triple> it) {
+        while(it.hasNext()){
+            deleted(it.next());
+        }
+    }
+
+    @Override
+    public void notifyDeleteGraph(Graph g, Graph removed) {
+        notifyDeleteIterator(g, removed.find(Node.ANY, Node.ANY, Node.ANY));
+    }
+
+    @Override
+    public void notifyEvent(Graph source, Object value) {
+        //removeAll and remove(s,p,o) do not report the removed triples
+        if(value instanceof GraphEvents && !value.equals(GraphEvents.startRead) && !value.equals(GraphEvents.finishRead)){
+            LOGGER.debug("Recount all matches after event {}", value);
+            rebuild();
+        }
+    }
+
+    private static class PatternState {
+        final String pattern;
+        final Op op;
+        final Set<Construct> constructs;
+        final List<Triple> triples;
+        long matches;
+        boolean dirty;
+
+        PatternState(String pattern, Op op, Set<Construct> constructs, List<Triple> triples) {
+            this.pattern = pattern;
+            this.op = op;
+            this.constructs = constructs;
+            this.triples = triples;
+        }
+    }
+
+    private static class TriplePattern {
+        final PatternState state;
+        final Triple triple;
+
+        TriplePattern(PatternState state, Triple triple) {
+            this.state = state;
+            this.triple = triple;
+        }
+    }
+}
@@ -3,11 +3,15 @@ package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.semanticweb.owlapi.util.Construct;
 import org.semanticweb.owlapi.util.Languages;
@@ -41,10 +45,52 @@ public abstract class JenaDLExpressivityChecker {
         return String.format("?x %s ?y.", rdfs(predicate));
     }
     
-    protected String sparqlPrefixes = "PREFIX owl:<http://www.w3.org/2002/07/owl#> PREFIX rdfs:<http://www.w3.org/2000/01/rdf-schema#> PREFIX rdf:<http://www.w3.org/1999/02/22-rdf-syntax-ns#>";
+    protected QueryCatalog catalog = createCatalog();
+    
+    protected String sparqlPrefixes = catalog.getPrefixes();
        
-    protected Map<Construct, List<String>> constructToSparqlQuery = createConstructToSparqlQuery();    
-    protected Map<Construct, List<String>> createConstructToSparqlQuery(){        
+    protected Map<Construct, List<String>> constructToSparqlQuery = catalog.getConstructToPatterns();
+    
+    /**
+     * Creates the catalog of this checker: the shared {@link QueryCatalog#getDefault()}, or a catalog of the patterns
+     * returned by {@link #createConstructToSparqlQuery()} if a subclass overrides it.
+     * @return the catalog
+     */
+    protected QueryCatalog createCatalog(){
+        if(!overridesConstructToSparqlQuery(getClass()))
+            return QueryCatalog.getDefault();
+        return QueryCatalog.create(createConstructToSparqlQuery());
+    }
+    
+    private static boolean overridesConstructToSparqlQuery(Class<?> clazz){
+        for(Class<?> c = clazz; c != JenaDLExpressivityChecker.class; c = c.getSuperclass()){
+            try {
+                c.getDeclaredMethod("createConstructToSparqlQuery");
+                return true;
+            } catch (NoSuchMethodException ex) {
+                //look at the superclass
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Subclasses can override this method to check other patterns. They are then parsed for each checker,
+     * a catalog given to {@link #setQueryCatalog(QueryCatalog)} is parsed only once.
+     * @return the patterns for each construct, by default a modifiable copy of the patterns of the shared catalog
+     */
+    protected Map<Construct, List<String>> createConstructToSparqlQuery(){
+        Map<Construct, List<String>> m = new HashMap<>();
+        for(Map.Entry<Construct, List<String>> entry : QueryCatalog.getDefault().getConstructToPatterns().entrySet()){
+            m.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return m;
+    }
+    
+    /**
+     * @return the built-in patterns for each construct. They are parsed once in {@link QueryCatalog#getBuiltin()}.
+     */
+    protected static Map<Construct, List<String>> createBuiltinConstructToSparqlQuery(){        
         Map<Construct, List<String>> m = new HashMap<>();
         addQuery(m, Construct.ROLE_INVERSE,
                 "?x owl:inverseOf ?y.", //OWLObjectInverseOf 
@@ -162,6 +208,124 @@ public abstract class JenaDLExpressivityChecker {
     }   
     
     
+    /**
+     * Index from each distinct pattern to all constructs it proves.
+     * @see QueryCatalog#getPatternToConstructs() 
+     */
+    protected Map<String, Set<Construct>> patternToConstructs = catalog.getPatternToConstructs();
+    
+    /**
+     * @param constructs the constructs to check
+     * @return all distinct patterns which prove at least one of the given constructs (together with all constructs they prove)
+     */
+    protected Map<String, Set<Construct>> getPatternsFor(Collection<Construct> constructs){
+        Map<String, Set<Construct>> m = new LinkedHashMap<>();
+        for(Map.Entry<String, Set<Construct>> entry : this.patternToConstructs.entrySet()){
+            if(!Collections.disjoint(entry.getValue(), constructs))
+                m.put(entry.getKey(), entry.getValue());
+        }
+        if(this.statistics == null)
+            return m;
+        Map<String, Set<Construct>> ordered = new LinkedHashMap<>();
+        for(String pattern : this.statistics.order(m.keySet())){
+            ordered.put(pattern, m.get(pattern));
+        }
+        return ordered;
+    }
+    
+    /**
+     * Statistics of former runs. If set, the patterns are executed in the order of their expected cost
+     * and each executed pattern is recorded. The owner of the statistics is responsible to save them.
+     */
+    protected PatternStatistics statistics;
+    
+    public PatternStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @param statistics the statistics which order the patterns and record their executions (null to disable)
+     */
+    public void setStatistics(PatternStatistics statistics) {
+        this.statistics = statistics;
+    }
+    
+    /**
+     * Records the execution of a pattern in the statistics (if set) and notifies the listeners.
+     * @param pattern the pattern
+     * @param constructs the constructs the pattern proves
+     * @param hit true if it matched
+     * @param nanos the time it took
+     */
+    protected void recordPattern(String pattern, Set<Construct> constructs, boolean hit, long nanos){
+        if(this.statistics != null)
+            this.statistics.record(pattern, hit, nanos);
+        for(ExpressivityCheckListener l : this.listeners){
+            l.patternChecked(pattern, constructs, hit, nanos);
+        }
+    }
+    
+    /**
+     * Notifies the listeners that a pattern is not executed because its constructs are found already.
+     * @param pattern the pattern
+     * @param constructs the constructs the pattern proves
+     */
+    protected void skipPattern(String pattern, Set<Construct> constructs){
+        for(ExpressivityCheckListener l : this.listeners){
+            l.patternSkipped(pattern, constructs);
+        }
+    }
+    
+    protected final List<ExpressivityCheckListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long checkStartNanos = System.nanoTime();
+    
+    /**
+     * @param listener is notified about the progress of the checks
+     */
+    public void addListener(ExpressivityCheckListener listener) {
+        this.listeners.add(listener);
+    }
+    
+    public void removeListener(ExpressivityCheckListener listener) {
+        this.listeners.remove(listener);
+    }
+    
+    /**
+     * Marks the start of a check which is done outside of {@link #checkConstructs()} and notifies the listeners.
+     */
+    protected void fireCheckStarted(){
+        this.checkStartNanos = System.nanoTime();
+        for(ExpressivityCheckListener l : this.listeners){
+            l.checkStarted(this);
+        }
+    }
+    
+    /**
+     * Notifies the listeners about the end of a check.
+     * @param result the constructs found (null if the check failed)
+     */
+    protected void fireCheckFinished(List<Construct> result){
+        long nanos = System.nanoTime() - this.checkStartNanos;
+        for(ExpressivityCheckListener l : this.listeners){
+            l.checkFinished(this, result, nanos);
+        }
+    }
+    
+    /**
+     * Replaces the catalog of patterns which is used by this checker.
+     * @param catalog the new catalog
+     */
+    public void setQueryCatalog(QueryCatalog catalog) {
+        this.catalog = catalog;
+        this.sparqlPrefixes = catalog.getPrefixes();
+        this.constructToSparqlQuery = catalog.getConstructToPatterns();
+        this.patternToConstructs = catalog.getPatternToConstructs();
+    }
+
+    public QueryCatalog getQueryCatalog() {
+        return catalog;
+    }
+    
     private static void addQuery(Map<Construct, List<String>> map, Construct c, String... queries){
         if(map.containsKey(c))
             throw new IllegalArgumentException("Key is already in map");
@@ -170,7 +334,17 @@ public abstract class JenaDLExpressivityChecker {
     
     protected abstract void checkConstructs();
     
-    private Set<Construct> constructs;
+    private static final int ROLE_INVERSE_BIT = 1 << Construct.ROLE_INVERSE.ordinal();
+    private static final int ROLE_REFLEXIVITY_CHAINS_BIT = 1 << Construct.ROLE_REFLEXIVITY_CHAINS.ordinal();
+    private static final int ROLE_COMPLEX_BIT = 1 << Construct.ROLE_COMPLEX.ordinal();
+
+    /**
+     * The constructs found (bit i is the construct with ordinal i). It is updated without locks, thus checkers can add constructs from many threads.
+     * The merge rules and the trimming are applied when the constructs are read.
+     */
+    private final AtomicInteger found = new AtomicInteger();
+    private volatile boolean checked;
+    private volatile Result result;
     
     
     //methods from DLExpressivityChecker
@@ -182,7 +356,7 @@ public abstract class JenaDLExpressivityChecker {
      *         returned.
      */
     public Collection<Languages> expressibleInLanguages() {
-        return Arrays.stream(Languages.values()).filter(this::minimal).collect(Collectors.toList());
+        return new ArrayList<>(LanguageLattice.minimalLanguages(getConstructMask()));
     }
 
     /**
@@ -191,12 +365,7 @@ public abstract class JenaDLExpressivityChecker {
      *         found, but l can.
      */
     public boolean minimal(Languages l) {
-        if (!l.components().containsAll(getOrderedConstructs())) {
-            // not minimal because it does not cover the constructs found
-            return false;
-        }
-        return Arrays.stream(Languages.values()).filter(p -> p.isSubLanguageOf(l))
-            .noneMatch(this::minimal);
+        return LanguageLattice.isMinimal(l, getConstructMask());
     }
 
     /**
@@ -205,7 +374,7 @@ public abstract class JenaDLExpressivityChecker {
      *         ontology are included in the language
      */
     public boolean isWithin(Languages l) {
-        return l.components().containsAll(getOrderedConstructs());
+        return LanguageLattice.isWithin(l, getConstructMask());
     }
 
     /**
@@ -230,28 +399,109 @@ public abstract class JenaDLExpressivityChecker {
         return getOrderedConstructs().stream().map(Object::toString).collect(Collectors.joining());
     }
 
+    /**
+     * @param cs constructs
+     * @return true if all given constructs are already found - then a pattern which proves only these constructs can be skipped.
+     */
+    protected boolean isFound(Collection<Construct> cs) {
+        int mask = LanguageLattice.mask(cs);
+        return (found.get() & mask) == mask;
+    }
+
     protected Set<Construct> getOrderedConstructs() {
-        if (constructs == null) {
-            constructs = new TreeSet<>();
-            checkConstructs();
+        if (!checked) {
+            checked = true;
+            fireCheckStarted();
+            boolean finished = false;
+            try {
+                checkConstructs();
+                finished = true;
+            } finally {
+                if(!this.listeners.isEmpty()){
+                    fireCheckFinished(finished ? new ArrayList<>(getResult().constructs) : null);
+                }
+            }
         }
-        Construct.trim(constructs);
-        return constructs;
+        return getResult().constructs;
     }
 
+    /**
+     * @return the trimmed constructs as bitmask, see {@link LanguageLattice}
+     */
+    protected int getConstructMask() {
+        getOrderedConstructs();
+        return getResult().mask;
+    }
+
+    /**
+     * Applies the merge rules and trims the constructs, only if a construct was added since the last call.
+     */
+    private Result getResult() {
+        int raw = found.get();
+        Result r = this.result;
+        if(r == null || r.raw != raw){
+            r = new Result(raw);
+            this.result = r;
+        }
+        return r;
+    }
+
+    private static class Result {
+        final int raw;
+        final Set<Construct> constructs;
+        final int mask;
+
+        Result(int raw) {
+            this.raw = raw;
+            int merged = raw;
+            // Rr+I = R + I
+            if((merged & ROLE_INVERSE_BIT) != 0 && (merged & ROLE_REFLEXIVITY_CHAINS_BIT) != 0)
+                merged = (merged & ~ROLE_REFLEXIVITY_CHAINS_BIT) | ROLE_COMPLEX_BIT;
+            Set<Construct> cs = new TreeSet<>();
+            for(Construct c : Construct.values()){
+                if((merged & (1 << c.ordinal())) != 0)
+                    cs.add(c);
+            }
+            Construct.trim(cs);
+            this.constructs = Collections.unmodifiableSet(cs);
+            this.mask = LanguageLattice.mask(cs);
+        }
+    }
+
+    /**
+     * Adds a construct which was found. This method is thread safe and lock free, thus checkers can call it from multiple threads.
+     * The merge rules are independent of the order in which the constructs are added.
+     * @param c the construct
+     */
     protected void addConstruct(Construct c) {
-        if (constructs == null) {
-            constructs = new TreeSet<>();
+        checked = true;
+        int bit = 1 << c.ordinal();
+        if((found.getAndUpdate(m -> m | bit) & bit) == 0){
+            long nanos = System.nanoTime() - this.checkStartNanos;
+            for(ExpressivityCheckListener l : this.listeners){
+                l.constructFound(c, nanos);
+            }
         }
-        // Rr+I = R + I
-        if (c == Construct.ROLE_INVERSE && constructs.contains(Construct.ROLE_REFLEXIVITY_CHAINS)) {
-            constructs.add(c);
-            constructs.remove(Construct.ROLE_REFLEXIVITY_CHAINS);
-            constructs.add(Construct.ROLE_COMPLEX);
-        } else if (c == Construct.ROLE_REFLEXIVITY_CHAINS && constructs.contains(Construct.ROLE_INVERSE)) {
-            constructs.add(Construct.ROLE_COMPLEX);
-        } else {
-            constructs.add(c);
+    }
+    
+    /**
+     * Forgets all constructs found so far. The next call of a getter runs {@link #checkConstructs()} again.
+     * Used by checkers whose ontology changes over time.
+     */
+    protected synchronized void resetConstructs() {
+        checked = false;
+        found.set(0);
+    }
+    
+    /**
+     * Replaces the constructs by the result of a check which was done outside of {@link #checkConstructs()}.
+     * @param cs all constructs found (raw, the merge rules are applied here)
+     */
+    protected synchronized void setCheckedConstructs(Collection<Construct> cs) {
+        resetConstructs();
+        checked = true;
+        for(Construct c : cs){
+            addConstruct(c);
         }
     }
 }
@@ -0,0 +1,113 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.List;
+import java.util.Set;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * Emits Java Flight Recorder events for checks, patterns and endpoint queries, thus slow checks can be correlated with GC and I/O.
+ * The events are committed at the end of the operation, their field latency contains the duration.
+ * The JFR API exists since Java 11 (and in some builds of Java 8) - check {@link #isAvailable()} before this class is used.
+ * @author shertlin
+ */
+public class JfrExpressivityListener implements ExpressivityCheckListener {
+
+    private static final String PREFIX = "de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity.";
+
+    /**
+     * @return true if the JFR API is available in this JVM
+     */
+    public static boolean isAvailable(){
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void patternChecked(String pattern, Set<Construct> constructs, boolean hit, long nanos) {
+        PatternEvent event = new PatternEvent();
+        if(event.isEnabled()){
+            event.pattern = pattern;
+            event.constructs = constructs.toString();
+            event.hit = hit;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void queryExecuted(String endpoint, long nanos, long bytes, boolean success) {
+        QueryEvent event = new QueryEvent();
+        if(event.isEnabled()){
+            event.endpoint = endpoint;
+            event.bytes = bytes;
+            event.success = success;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void checkFinished(JenaDLExpressivityChecker checker, List<Construct> constructs, long nanos) {
+        CheckEvent event = new CheckEvent();
+        if(event.isEnabled()){
+            event.checker = checker.getClass().getSimpleName();
+            event.constructs = constructs == null ? null : constructs.toString();
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    @Name(PREFIX + "Check")
+    @Label("Expressivity Check")
+    @Category("DL Expressivity")
+    static class CheckEvent extends Event {
+        @Label("Checker")
+        String checker;
+        @Label("Constructs")
+        String constructs;
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    @Name(PREFIX + "Pattern")
+    @Label("Pattern Check")
+    @Category("DL Expressivity")
+    static class PatternEvent extends Event {
+        @Label("Pattern")
+        String pattern;
+        @Label("Constructs")
+        String constructs;
+        @Label("Hit")
+        boolean hit;
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    @Name(PREFIX + "Query")
+    @Label("Endpoint Query")
+    @Category("DL Expressivity")
+    static class QueryEvent extends Event {
+        @Label("Endpoint")
+        String endpoint;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Success")
+        boolean success;
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+}
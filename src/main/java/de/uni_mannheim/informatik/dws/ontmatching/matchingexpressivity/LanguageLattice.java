@@ -0,0 +1,107 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.semanticweb.owlapi.util.Construct;
+import org.semanticweb.owlapi.util.Languages;
+
+/**
+ * The lattice of {@link Languages}, precomputed once. A set of constructs is represented as bitmask (bit i is the construct with ordinal i),
+ * thus checking if a language covers the constructs is a single bitwise operation.
+ * <p>
+ * A language is minimal for a set of constructs if it covers them and none of its sublanguages does
+ * (this is the same as the recursive definition of OWLAPI's DLExpressivityChecker).
+ * The minimal languages are memoized per mask - there are at most 2^18 masks.
+ * @author shertlin
+ */
+public final class LanguageLattice {
+
+    private static final Languages[] LANGUAGES = Languages.values();
+    private static final int[] COMPONENTS = new int[LANGUAGES.length];
+    private static final int[][] SUBLANGUAGES = new int[LANGUAGES.length][];
+    private static final ConcurrentMap<Integer, List<Languages>> MINIMAL = new ConcurrentHashMap<>();
+
+    static {
+        for(Languages l : LANGUAGES){
+            COMPONENTS[l.ordinal()] = mask(l.components());
+        }
+        for(Languages l : LANGUAGES){
+            List<Integer> subs = new ArrayList<>();
+            for(Languages p : LANGUAGES){
+                if(p.isSubLanguageOf(l))
+                    subs.add(p.ordinal());
+            }
+            SUBLANGUAGES[l.ordinal()] = subs.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private LanguageLattice() {
+    }
+
+    /**
+     * @param constructs the constructs (already trimmed, see {@link Construct#trim(Set)})
+     * @return the bitmask of the constructs
+     */
+    public static int mask(Collection<Construct> constructs){
+        int mask = 0;
+        for(Construct c : constructs){
+            mask |= 1 << c.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * @param constructs the constructs - they are trimmed (on a copy) before the mask is computed
+     * @return the bitmask of the trimmed constructs
+     */
+    public static int trimmedMask(Collection<Construct> constructs){
+        Set<Construct> copy = constructs.isEmpty() ? EnumSet.noneOf(Construct.class) : EnumSet.copyOf(constructs);
+        Construct.trim(copy);
+        return mask(copy);
+    }
+
+    /**
+     * @param l the language
+     * @param mask the constructs
+     * @return true if the language contains all constructs
+     */
+    public static boolean isWithin(Languages l, int mask){
+        return (mask & ~COMPONENTS[l.ordinal()]) == 0;
+    }
+
+    /**
+     * @param l the language
+     * @param mask the constructs
+     * @return true if the language contains all constructs and none of its sublanguages does
+     */
+    public static boolean isMinimal(Languages l, int mask){
+        if(!isWithin(l, mask))
+            return false;
+        for(int sub : SUBLANGUAGES[l.ordinal()]){
+            if((mask & ~COMPONENTS[sub]) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param mask the constructs
+     * @return the minimal languages in the order of {@link Languages#values()} (unmodifiable and shared)
+     */
+    public static List<Languages> minimalLanguages(int mask){
+        return MINIMAL.computeIfAbsent(mask, m -> {
+            List<Languages> minimal = new ArrayList<>();
+            for(Languages l : LANGUAGES){
+                if(isMinimal(l, m))
+                    minimal.add(l);
+            }
+            return Collections.unmodifiableList(minimal);
+        });
+    }
+}
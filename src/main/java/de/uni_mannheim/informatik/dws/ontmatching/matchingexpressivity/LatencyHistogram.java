@@ -0,0 +1,107 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations with buckets of powers of two microseconds (the percentiles are the upper bound of their bucket).
+ * @author shertlin
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos the duration to add
+     */
+    public void record(long nanos){
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        this.buckets.incrementAndGet(bucket);
+        this.count.increment();
+        this.sumNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @return the current state
+     */
+    public Snapshot snapshot(){
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(total, total == 0 ? 0 : this.sumNanos.sum() / total / 1000,
+                percentile(counts, total, 0.5), percentile(counts, total, 0.9), percentile(counts, total, 0.99),
+                TimeUnit.NANOSECONDS.toMicros(this.maxNanos.get()));
+    }
+
+    private static long percentile(long[] counts, long total, double p){
+        long rank = (long) Math.ceil(total * p);
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++){
+            seen += counts[i];
+            if(seen >= rank && seen > 0)
+                return i == 0 ? 0 : 1L << i;
+        }
+        return 0;
+    }
+
+    /**
+     * The values of a histogram, all durations in microseconds.
+     */
+    public static class Snapshot {
+        private final long count;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        public Snapshot(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP90Micros() {
+            return p90Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " mean=" + meanMicros + "us p50=" + p50Micros + "us p90=" + p90Micros + "us p99=" + p99Micros + "us max=" + maxMicros + "us";
+        }
+    }
+}
@@ -1,6 +1,21 @@
 package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -9,6 +24,8 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
 import org.semanticweb.owlapi.util.Languages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,13 +37,129 @@ public class Main {
         Options options = new Options();
 
         Option endpoint = new Option("e", "enpoint", true, "Endpoint as URL");
-        endpoint.setRequired(true);
+        endpoint.setRequired(false);
         options.addOption(endpoint);
 
         Option graph = new Option("g", "graph", true, "Graph as URL");
         graph.setRequired(false);
         options.addOption(graph);
 
+        Option batch = new Option("b", "batch", true, "Number of constructs combined in one SELECT query (0 = one ASK query per pattern), default " + SparqlDlExpressivityChecker.DEFAULT_BATCH_SIZE);
+        batch.setRequired(false);
+        options.addOption(batch);
+
+        Option parallel = new Option("p", "parallel", true, "Maximum number of concurrent queries sent to the endpoint, default 1");
+        parallel.setRequired(false);
+        options.addOption(parallel);
+
+        Option timeout = new Option("qt", "timeout", true, "Timeout in seconds for each query sent to the endpoint, transient failures are retried");
+        timeout.setRequired(false);
+        options.addOption(timeout);
+
+        Option deadline = new Option("dl", "deadline", true, "Maximum time in seconds for the whole check of the endpoint - constructs which are not decided until then are reported as unknown");
+        deadline.setRequired(false);
+        options.addOption(deadline);
+
+        Option cache = new Option("c", "cache", true, "Directory of a persistent cache for the endpoint query results");
+        cache.setRequired(false);
+        options.addOption(cache);
+
+        Option cacheTtl = new Option("ct", "cache-ttl", true, "Hours a cached query result is used, default 168 (one week)");
+        cacheTtl.setRequired(false);
+        options.addOption(cacheTtl);
+
+        Option cacheProbe = new Option("cp", "cache-probe", true, "Send a probe before each run and drop the cached results of the endpoint if its answer changed: "
+                + "'count' (number of triples - a full scan, slow on large endpoints), 'modified' (dcterms:modified of the VoID description) or a SELECT query, default 'count'");
+        cacheProbe.setOptionalArg(true);
+        cacheProbe.setRequired(false);
+        options.addOption(cacheProbe);
+
+        Option tdb = new Option("d", "tdb", true, "Directory of a TDB2 database which should be checked (instead of an endpoint). The graph can be chosen with -g");
+        tdb.setRequired(false);
+        options.addOption(tdb);
+
+        Option load = new Option("l", "load", true, "Files which are bulk loaded into the TDB2 database if the graph is empty");
+        load.setRequired(false);
+        load.setArgs(Option.UNLIMITED_VALUES);
+        options.addOption(load);
+
+        Option input = new Option("i", "input", true, "Batch mode: ontology files to check - a directory, a glob (e.g. 'onts/**.owl'), a file or @list.txt with one path per line, or - for standard in. Files can be compressed (gz, bz2, xz)");
+        input.setRequired(false);
+        input.setArgs(Option.UNLIMITED_VALUES);
+        options.addOption(input);
+
+        Option inputLanguage = new Option("il", "input-language", true, "Batch mode: serialization of the inputs (e.g. TTL, RDF/XML, N-Triples), default detected from the file name or content");
+        inputLanguage.setRequired(false);
+        options.addOption(inputLanguage);
+
+        Option output = new Option("o", "output", true, "Batch mode: file the results are written to, default standard out");
+        output.setRequired(false);
+        options.addOption(output);
+
+        Option format = new Option("f", "format", true, "Batch mode: jsonl or csv, default jsonl");
+        format.setRequired(false);
+        options.addOption(format);
+
+        Option resultStore = new Option("rs", "result-store", true, "Batch mode: file of a persistent result store - files whose content was checked before (with the same patterns) are only hashed, not parsed");
+        resultStore.setRequired(false);
+        options.addOption(resultStore);
+
+        Option resultStoreSize = new Option("rss", "result-store-size", true, "Batch mode: maximum number of results in the result store, the least recently used are dropped, default 1000000");
+        resultStoreSize.setRequired(false);
+        options.addOption(resultStoreSize);
+
+        Option threads = new Option("t", "threads", true, "Batch mode: number of files checked in parallel, default number of cores");
+        threads.setRequired(false);
+        options.addOption(threads);
+
+        Option chunkSize = new Option("cs", "chunk-size", true, "Batch mode: uncompressed N-Triples and N-Quads files larger than this size in MB are split into chunks which are parsed by -t threads, default 64, 0 disables it");
+        chunkSize.setRequired(false);
+        options.addOption(chunkSize);
+
+        Option model = new Option("m", "model", false, "Batch mode: load each file into a model instead of streaming it");
+        model.setRequired(false);
+        options.addOption(model);
+
+        Option projected = new Option("pm", "projected", false, "Batch mode with -m: load only the triples which the patterns can match (OWL/RDFS vocabulary), not the ABox");
+        projected.setRequired(false);
+        options.addOption(projected);
+
+        Option patternThreads = new Option("pt", "pattern-threads", true, "Number of threads which run the patterns in parallel on one model (-d, or batch mode with -m), default 1");
+        patternThreads.setRequired(false);
+        options.addOption(patternThreads);
+
+        Option statistics = new Option("s", "statistics", true, "Directory of pattern statistics (latency and hit rate) which order the patterns - cheap and likely matching patterns run first");
+        statistics.setRequired(false);
+        options.addOption(statistics);
+
+        Option statisticsScope = new Option("ss", "statistics-scope", true, "Name of the statistics, default is the endpoint (or TDB2 directory) with the graph - batch mode: name of the corpus, default 'batch'");
+        statisticsScope.setRequired(false);
+        options.addOption(statisticsScope);
+
+        Option sweep = new Option("w", "sweep", false, "Check every named graph of the endpoint with one query per pattern - the results are written like in batch mode (-o, -f)");
+        sweep.setRequired(false);
+        options.addOption(sweep);
+
+        Option metrics = new Option("x", "metrics", false, "Collect metrics (latency histograms, queries, bytes received) - registered in JMX, logged at the end and emitted as JFR events if JFR is available");
+        metrics.setRequired(false);
+        options.addOption(metrics);
+
+        Option serve = new Option("sv", "serve", true, "Run as HTTP server on this port: POST /check with an ontology or GET /check?endpoint=...&graph=... - the options -t, -b, -p, -qt, -c, -ct and -cp apply to each check");
+        serve.setRequired(false);
+        options.addOption(serve);
+
+        Option serverBind = new Option("sb", "server-bind", true, "Server mode: address to listen on, default is the loopback address (only local connections) - use 0.0.0.0 for all interfaces");
+        serverBind.setRequired(false);
+        options.addOption(serverBind);
+
+        Option serverEndpoints = new Option("se", "server-endpoints", true, "Server mode: comma separated endpoint URLs which may be checked with GET /check?endpoint=... ('*' for any URL) - default none");
+        serverEndpoints.setRequired(false);
+        options.addOption(serverEndpoints);
+
+        Option serverRequests = new Option("sr", "server-requests", true, "Server mode: maximum number of requests handled at the same time (each may buffer an upload), further requests are answered with 503 - default 64");
+        serverRequests.setRequired(false);
+        options.addOption(serverRequests);
+
         CommandLineParser parser = new DefaultParser();
         HelpFormatter formatter = new HelpFormatter();
         CommandLine cmd = null;
@@ -38,11 +171,241 @@ public class Main {
             formatter.printHelp("dl-expressivity", options);
             System.exit(1);
         }
-        
-        SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(cmd.getOptionValue("enpoint"), cmd.getOptionValue("graph"));
+        ExpressivityMetrics checkMetrics = null;
+        if(cmd.hasOption("metrics")){
+            checkMetrics = new ExpressivityMetrics();
+            checkMetrics.register("main");
+        }
+        if(cmd.hasOption("serve")){
+            runServer(cmd, checkMetrics);
+            return;
+        }
+        if(cmd.hasOption("input")){
+            runBatch(cmd, checkMetrics);
+            logMetrics(checkMetrics);
+            return;
+        }
+        JenaDLExpressivityChecker checker;
+        PatternStatistics patternStatistics = null;
+        if(cmd.hasOption("tdb")){
+            TdbDlExpressivityChecker tdbChecker = new TdbDlExpressivityChecker(cmd.getOptionValue("tdb"), cmd.getOptionValue("graph"));
+            if(cmd.hasOption("load"))
+                tdbChecker.loadIfEmpty(cmd.getOptionValues("load"));
+            patternStatistics = createStatistics(cmd, Paths.get(cmd.getOptionValue("tdb")).toAbsolutePath().toString());
+            tdbChecker.setStatistics(patternStatistics);
+            if(cmd.hasOption("pattern-threads"))
+                tdbChecker.setParallelism(Integer.parseInt(cmd.getOptionValue("pattern-threads")));
+            checker = tdbChecker;
+            addListeners(checker, checkMetrics);
+        }else if(cmd.hasOption("enpoint")){
+            SparqlDlExpressivityChecker sparqlChecker = new SparqlDlExpressivityChecker(cmd.getOptionValue("enpoint"), cmd.getOptionValue("graph"));
+            patternStatistics = createStatistics(cmd, cmd.getOptionValue("enpoint"));
+            sparqlChecker.setStatistics(patternStatistics);
+            if(cmd.hasOption("batch"))
+                sparqlChecker.setBatchSize(Integer.parseInt(cmd.getOptionValue("batch")));
+            if(cmd.hasOption("parallel"))
+                sparqlChecker.setMaxConcurrentQueries(Integer.parseInt(cmd.getOptionValue("parallel")));
+            if(cmd.hasOption("timeout"))
+                sparqlChecker.setQueryTimeout(Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("timeout"))));
+            if(cmd.hasOption("cache")){
+                QueryResultCache resultCache = new QueryResultCache(Paths.get(cmd.getOptionValue("cache")));
+                if(cmd.hasOption("cache-ttl"))
+                    resultCache.setTimeToLive(Duration.ofHours(Long.parseLong(cmd.getOptionValue("cache-ttl"))));
+                sparqlChecker.setCache(resultCache);
+                if(cmd.hasOption("cache-probe"))
+                    sparqlChecker.setCacheProbe(getCacheProbe(cmd.getOptionValue("cache-probe")));
+            }
+            checker = sparqlChecker;
+            addListeners(checker, checkMetrics);
+            if(cmd.hasOption("sweep")){
+                runSweep(cmd, sparqlChecker);
+                logMetrics(checkMetrics);
+                return;
+            }
+            if(cmd.hasOption("deadline")){
+                PartialExpressivityResult result = sparqlChecker.checkAsync(Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("deadline")))).join();
+                if(patternStatistics != null)
+                    patternStatistics.save();
+                if(!result.isComplete()){
+                    LOGGER.info("deadline reached - proven: " + result.getProven() + "\tunknown: " + result.getUnknown());
+                    logMetrics(checkMetrics);
+                    return;
+                }
+            }
+        }else{
+            System.out.println("Missing option: one of -e, -d or -i is required");
+            formatter.printHelp("dl-expressivity", options);
+            System.exit(1);
+            return;
+        }
         
         Collection<Languages> dlLangs = checker.expressibleInLanguages();
+        if(patternStatistics != null)
+            patternStatistics.save();
         String exp = dlLangs.stream().map(Enum::name).collect(Collectors.joining(", "));
         LOGGER.info("expressivity: " + exp + "\tDL Name:" + checker.getDescriptionLogicName());        
+        logMetrics(checkMetrics);
+    }
+    
+    private static void addListeners(JenaDLExpressivityChecker checker, ExpressivityMetrics checkMetrics){
+        if(checkMetrics == null)
+            return;
+        checker.addListener(checkMetrics);
+        if(JfrExpressivityListener.isAvailable())
+            checker.addListener(new JfrExpressivityListener());
+    }
+    
+    private static void logMetrics(ExpressivityMetrics checkMetrics){
+        if(checkMetrics == null)
+            return;
+        LOGGER.info("metrics - checks: {} ({})", checkMetrics.getChecks(), checkMetrics.getCheckLatency());
+        LOGGER.info("metrics - patterns checked: {}, hits: {}, short circuits: {}", checkMetrics.getPatternsChecked(), checkMetrics.getPatternHits(), checkMetrics.getShortCircuits());
+        LOGGER.info("metrics - queries: {}, failed: {}, bytes received: {} ({})", checkMetrics.getQueries(), checkMetrics.getFailedQueries(), checkMetrics.getBytesReceived(), checkMetrics.getQueryLatency());
+        checkMetrics.getConstructLatency().forEach((c, h) -> LOGGER.info("metrics - construct {} found after {}", c, h));
+    }
+    
+    private static PatternStatistics createStatistics(CommandLine cmd, String defaultScope){
+        if(!cmd.hasOption("statistics"))
+            return null;
+        String scope = cmd.getOptionValue("statistics-scope");
+        if(scope == null){
+            scope = defaultScope;
+            if(cmd.hasOption("graph"))
+                scope += "\n" + cmd.getOptionValue("graph");
+        }
+        return PatternStatistics.forScope(Paths.get(cmd.getOptionValue("statistics")), scope);
+    }
+    
+    private static void runSweep(CommandLine cmd, SparqlDlExpressivityChecker checker){
+        BatchExpressivityChecker output = new BatchExpressivityChecker();
+        if(cmd.hasOption("format"))
+            output.setFormat(BatchExpressivityChecker.Format.valueOf(cmd.getOptionValue("format").toUpperCase(Locale.ROOT)));
+        long start = System.nanoTime();
+        Map<String, NamedGraphExpressivity> results = checker.sweepNamedGraphs();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOGGER.info("Checked {} named graphs in {} ms", results.size(), millis);
+        try {
+            if(cmd.hasOption("output")){
+                try(Writer out = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("output")), StandardCharsets.UTF_8)){
+                    output.write(results, millis, out);
+                }
+            }else{
+                output.write(results, millis, new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Could not write the results", ex);
+            System.exit(1);
+        }
+    }
+    
+    private static String getCacheProbe(String value){
+        if(value == null || value.equalsIgnoreCase("count"))
+            return SparqlDlExpressivityChecker.TRIPLE_COUNT_PROBE;
+        if(value.equalsIgnoreCase("modified"))
+            return SparqlDlExpressivityChecker.MODIFIED_PROBE;
+        return value;
+    }
+
+    private static void runServer(CommandLine cmd, ExpressivityMetrics checkMetrics){
+        QueryResultCache resultCache = null;
+        if(cmd.hasOption("cache")){
+            resultCache = new QueryResultCache(Paths.get(cmd.getOptionValue("cache")));
+            if(cmd.hasOption("cache-ttl"))
+                resultCache.setTimeToLive(Duration.ofHours(Long.parseLong(cmd.getOptionValue("cache-ttl"))));
+        }
+        QueryResultCache sharedCache = resultCache;
+        ExpressivityServer server = new ExpressivityServer();
+        if(cmd.hasOption("threads"))
+            server.setThreads(Integer.parseInt(cmd.getOptionValue("threads")));
+        if(cmd.hasOption("server-requests"))
+            server.setMaxRequests(Integer.parseInt(cmd.getOptionValue("server-requests")));
+        if(cmd.hasOption("server-endpoints"))
+            server.setAllowedEndpoints(Arrays.asList(cmd.getOptionValue("server-endpoints").split(",")));
+        server.setEndpointConfiguration(sparqlChecker -> {
+            if(cmd.hasOption("batch"))
+                sparqlChecker.setBatchSize(Integer.parseInt(cmd.getOptionValue("batch")));
+            if(cmd.hasOption("parallel"))
+                sparqlChecker.setMaxConcurrentQueries(Integer.parseInt(cmd.getOptionValue("parallel")));
+            if(cmd.hasOption("timeout"))
+                sparqlChecker.setQueryTimeout(Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("timeout"))));
+            if(sharedCache != null){
+                sparqlChecker.setCache(sharedCache);
+                if(cmd.hasOption("cache-probe"))
+                    sparqlChecker.setCacheProbe(getCacheProbe(cmd.getOptionValue("cache-probe")));
+            }
+            addListeners(sparqlChecker, checkMetrics);
+        });
+        try {
+            int port = Integer.parseInt(cmd.getOptionValue("serve"));
+            server.start(cmd.hasOption("server-bind")
+                    ? new InetSocketAddress(cmd.getOptionValue("server-bind"), port)
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException ex) {
+            LOGGER.error("Could not start the server", ex);
+            System.exit(1);
+        }
+        //the worker and HTTP threads are daemons, thus the main thread keeps the JVM alive
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException ex) {
+            server.close();
+        }
+    }
+
+    private static void runBatch(CommandLine cmd, ExpressivityMetrics checkMetrics){
+        BatchExpressivityChecker batch = new BatchExpressivityChecker();
+        if(cmd.hasOption("format"))
+            batch.setFormat(BatchExpressivityChecker.Format.valueOf(cmd.getOptionValue("format").toUpperCase(Locale.ROOT)));
+        if(cmd.hasOption("threads"))
+            batch.setThreads(Integer.parseInt(cmd.getOptionValue("threads")));
+        if(cmd.hasOption("chunk-size"))
+            batch.setChunkSize(Long.parseLong(cmd.getOptionValue("chunk-size")) * 1024 * 1024);
+        batch.setLoadModel(cmd.hasOption("model"));
+        batch.setProjectModel(cmd.hasOption("projected"));
+        if(cmd.hasOption("pattern-threads"))
+            batch.setModelParallelism(Integer.parseInt(cmd.getOptionValue("pattern-threads")));
+        if(cmd.hasOption("input-language")){
+            Lang lang = RDFLanguages.nameToLang(cmd.getOptionValue("input-language"));
+            if(lang == null)
+                throw new IllegalArgumentException("Unknown input language " + cmd.getOptionValue("input-language"));
+            batch.setInputLanguage(lang);
+        }
+        batch.setStatistics(createStatistics(cmd, "batch"));
+        if(checkMetrics != null){
+            batch.addListener(checkMetrics);
+            if(JfrExpressivityListener.isAvailable())
+                batch.addListener(new JfrExpressivityListener());
+        }
+        try {
+            List<String> inputs = Arrays.asList(cmd.getOptionValues("input"));
+            boolean standardIn = inputs.equals(Arrays.asList("-"));
+            List<Path> files = standardIn ? null : BatchExpressivityChecker.resolveFiles(inputs);
+            Writer out = cmd.hasOption("output")
+                    ? Files.newBufferedWriter(Paths.get(cmd.getOptionValue("output")), StandardCharsets.UTF_8)
+                    : new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            try {
+                if(standardIn){
+                    LOGGER.info("Check standard in");
+                    batch.run(OntologySource.of(System.in, batch.getInputLanguage(), null), out);
+                }else if(cmd.hasOption("result-store")){
+                    try(ExpressivityResultStore store = new ExpressivityResultStore(Paths.get(cmd.getOptionValue("result-store")))){
+                        if(cmd.hasOption("result-store-size"))
+                            store.setMaxEntries(Long.parseLong(cmd.getOptionValue("result-store-size")));
+                        batch.setResultStore(store);
+                        LOGGER.info("Check {} files ({} results stored)", files.size(), store.size());
+                        batch.run(files, out);
+                    }
+                }else{
+                    LOGGER.info("Check {} files", files.size());
+                    batch.run(files, out);
+                }
+            } finally {
+                if(cmd.hasOption("output"))
+                    out.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Batch mode failed", ex);
+            System.exit(1);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,26 @@
 package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
 
-import java.io.ByteArrayInputStream;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.shared.Lock;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.engine.QueryIterator;
 import org.semanticweb.owlapi.util.Construct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,33 +33,171 @@ public class ModelDlExpressivityChecker extends JenaDLExpressivityChecker{
     private static final Logger LOGGER = LoggerFactory.getLogger(ModelDlExpressivityChecker.class);
     
     protected Model m;
+    protected boolean vocabularyFilter = true;
+    protected boolean nativeMatching = true;
+    protected int parallelism = 1;
     
     public ModelDlExpressivityChecker(Model m) {
         this.m = m;
     }
     public ModelDlExpressivityChecker(String ontologyAsText, String language) {
         this.m = ModelFactory.createDefaultModel();
-        this.m.read(new ByteArrayInputStream(ontologyAsText.getBytes(StandardCharsets.UTF_8)), null, language);
+        this.m.read(new StringReader(ontologyAsText), null, language);
     }
     public ModelDlExpressivityChecker(String ontologyAsText) {
         this(ontologyAsText, "Turtle");
     }
+    /**
+     * @param source the ontology, parsed (and closed) in the constructor
+     */
+    public ModelDlExpressivityChecker(OntologySource source) {
+        this.m = ModelFactory.createDefaultModel();
+        try(OntologySource s = source){
+            s.parse(StreamRDFLib.graph(this.m.getGraph()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    /**
+     * @param file the ontology file, possibly compressed (gzip, bzip2, xz)
+     */
+    public ModelDlExpressivityChecker(Path file) {
+        this(open(file));
+    }
+    /**
+     * @param in the ontology, possibly compressed (gzip, bzip2, xz) - it is closed after parsing
+     * @param language the serialization - if null, it is detected from the content
+     */
+    public ModelDlExpressivityChecker(InputStream in, Lang language) {
+        this(open(in, language));
+    }
+
+    private static OntologySource open(Path file){
+        try {
+            return OntologySource.open(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    private static OntologySource open(InputStream in, Lang language){
+        try {
+            return OntologySource.of(in, language, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 
     @Override
     protected void checkConstructs() {
-        for(Map.Entry<Construct, List<String>> entry : this.constructToSparqlQuery.entrySet()){
-            LOGGER.info("Check for construct {} ({})", entry.getKey(), entry.getKey().name());
-            for(String s : entry.getValue()){
-                String query = String.format("%s ASK WHERE{ %s }",sparqlPrefixes, s);
-                try (QueryExecution qe = QueryExecutionFactory.create(query, m)){
-                    if(qe.execAsk()){
-                        addConstruct(entry.getKey());
-                        LOGGER.info("Check for construct {} - True", entry.getKey());
-                        break;
-                    }
-                }
+        BitSet presentVocabulary = this.vocabularyFilter ? getPresentVocabulary() : null;
+        List<Map.Entry<String, Set<Construct>>> patterns = new ArrayList<>();
+        for(Map.Entry<String, Set<Construct>> entry : getPatternsFor(this.constructToSparqlQuery.keySet()).entrySet()){
+            if(presentVocabulary != null && !this.catalog.canMatch(entry.getKey(), presentVocabulary)){
+                LOGGER.debug("Skip pattern {} - vocabulary does not occur", entry.getKey());
+                continue;
+            }
+            patterns.add(entry);
+        }
+        if(this.parallelism <= 1){
+            for(Map.Entry<String, Set<Construct>> entry : patterns){
+                checkPattern(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        //the patterns only read, thus one read lock of the calling thread keeps writers out for all workers
+        this.m.enterCriticalSection(Lock.READ);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for(Map.Entry<String, Set<Construct>> entry : patterns){
+                tasks.add(pool.submit(() -> checkPattern(entry.getKey(), entry.getValue())));
+            }
+            for(ForkJoinTask<?> task : tasks){
+                task.join();
             }
+        } finally {
+            this.m.leaveCriticalSection();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the pattern unless all its constructs are found already. Called from multiple threads in parallel mode.
+     * @param pattern the pattern
+     * @param constructs the constructs the pattern proves
+     */
+    protected void checkPattern(String pattern, Set<Construct> constructs){
+        if(isFound(constructs)){
+            skipPattern(pattern, constructs);
+            return;
+        }
+        LOGGER.debug("Check for constructs {} with pattern {}", constructs, pattern);
+        long start = System.nanoTime();
+        boolean result = ask(pattern);
+        recordPattern(pattern, constructs, result, System.nanoTime() - start);
+        if(result){
+            for(Construct c : constructs){
+                addConstruct(c);
+            }
+            LOGGER.debug("Check for constructs {} - True", constructs);
+        }
+    }
+    
+    /**
+     * Looks up which terms of the catalog vocabulary (predicates and rdf:type classes) occur in the model.
+     * These are index lookups in the graph and much cheaper than running the patterns.
+     * @return bit i is set if entry i of {@link QueryCatalog#getVocabulary()} occurs in the model
+     */
+    protected BitSet getPresentVocabulary(){
+        List<Triple> vocabulary = this.catalog.getVocabulary();
+        Graph graph = this.m.getGraph();
+        BitSet present = new BitSet(vocabulary.size());
+        for(int i = 0; i < vocabulary.size(); i++){
+            if(graph.contains(vocabulary.get(i)))
+                present.set(i);
+        }
+        return present;
+    }
+
+    /**
+     * @param parallelism number of threads which run the patterns in parallel on the model, default 1 (sequential).
+     *          With one thread per core, a check takes about as long as its slowest pattern.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param vocabularyFilter if true (default), patterns whose vocabulary does not occur in the model are not executed
+     */
+    public void setVocabularyFilter(boolean vocabularyFilter) {
+        this.vocabularyFilter = vocabularyFilter;
+    }
+    
+    /**
+     * @param nativeMatching if true (default), patterns which are basic graph patterns with filters are evaluated
+     *          with {@link NativePatternMatcher} (index lookups in the graph) instead of the SPARQL engine
+     */
+    public void setNativeMatching(boolean nativeMatching) {
+        this.nativeMatching = nativeMatching;
+    }
+    
+    /**
+     * Evaluates the pattern with its {@link NativePatternMatcher}, or executes the precompiled algebra of the pattern directly on the graph of the model.
+     * @param pattern the pattern
+     * @return true if the pattern has at least one match
+     */
+    protected boolean ask(String pattern){
+        if(this.nativeMatching){
+            NativePatternMatcher matcher = this.catalog.getMatcher(pattern);
+            if(matcher != null)
+                return matcher.ask(this.m.getGraph());
+        }
+        QueryIterator it = Algebra.exec(this.catalog.getAlgebra(pattern), this.m.getGraph());
+        try {
+            return it.hasNext();
+        } finally {
+            it.close();
         }
-        
     }
 }
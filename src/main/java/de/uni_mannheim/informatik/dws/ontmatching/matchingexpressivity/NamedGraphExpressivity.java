@@ -0,0 +1,32 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.Collection;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * The expressivity of one named graph, computed by {@link SparqlDlExpressivityChecker#sweepNamedGraphs()}.
+ * The constructs are given, thus the getters (e.g. {@link #expressibleInLanguages()}) do not query anything.
+ * @author shertlin
+ */
+public class NamedGraphExpressivity extends JenaDLExpressivityChecker {
+
+    private final String graph;
+
+    /**
+     * @param graph the name of the graph
+     * @param constructs all constructs found in the graph (raw, the merge rules are applied here)
+     */
+    public NamedGraphExpressivity(String graph, Collection<Construct> constructs) {
+        this.graph = graph;
+        setCheckedConstructs(constructs);
+    }
+
+    @Override
+    protected void checkConstructs() {
+        //the constructs are given in the constructor
+    }
+
+    public String getGraph() {
+        return graph;
+    }
+}
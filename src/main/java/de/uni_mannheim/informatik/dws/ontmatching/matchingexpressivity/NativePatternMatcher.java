@@ -0,0 +1,227 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpFilter;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunction;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.function.FunctionEnv;
+import org.apache.jena.sparql.function.FunctionEnvBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * Evaluates a pattern (a basic graph pattern, optionally filtered) directly with {@link Graph#find(Node, Node, Node)}
+ * instead of the ARQ iterator engine. It only answers if there is a match (ASK), thus it stops at the first one.
+ * <p>
+ * The triple patterns are ordered once: the next one is the one with the most concrete or already bound positions.
+ * Each filter is evaluated as soon as all its variables are bound (filters on variables which are never bound are
+ * evaluated at the end and fail, as in SPARQL). Patterns with other operators (OPTIONAL, UNION, property paths, EXISTS)
+ * can not be compiled, see {@link #compile(Op)}.
+ * @author shertlin
+ */
+public final class NativePatternMatcher {
+
+    private static final FunctionEnv ENV = new FunctionEnvBase();
+
+    private final Var[] vars;
+    /** the triple patterns in evaluation order */
+    private final Triple[] triples;
+    /** slot of the subject, predicate and object variable of each triple, -1 if the position is concrete */
+    private final int[][] slots;
+    /** filters[i] are evaluated after triple i-1 is matched (filters[0] before any triple) */
+    private final Expr[][] filters;
+
+    private NativePatternMatcher(List<Triple> pattern, List<Expr> exprs) {
+        Map<Var, Integer> slotOf = new HashMap<>();
+        List<Triple> remaining = new ArrayList<>(pattern);
+        List<Triple> ordered = new ArrayList<>();
+        while(!remaining.isEmpty()){
+            Triple best = null;
+            int bestScore = -1;
+            for(Triple t : remaining){
+                int score = score(t, slotOf);
+                if(score > bestScore){
+                    best = t;
+                    bestScore = score;
+                }
+            }
+            remaining.remove(best);
+            ordered.add(best);
+            for(Node n : new Node[]{best.getSubject(), best.getPredicate(), best.getObject()}){
+                if(Var.isVar(n))
+                    slotOf.putIfAbsent(Var.alloc(n), slotOf.size());
+            }
+        }
+        this.triples = ordered.toArray(new Triple[0]);
+        this.slots = new int[this.triples.length][];
+        for(int i = 0; i < this.triples.length; i++){
+            Triple t = this.triples[i];
+            this.slots[i] = new int[]{slot(t.getSubject(), slotOf), slot(t.getPredicate(), slotOf), slot(t.getObject(), slotOf)};
+        }
+        this.vars = new Var[slotOf.size()];
+        for(Map.Entry<Var, Integer> entry : slotOf.entrySet()){
+            this.vars[entry.getValue()] = entry.getKey();
+        }
+
+        List<List<Expr>> levels = new ArrayList<>();
+        for(int i = 0; i <= this.triples.length; i++){
+            levels.add(new ArrayList<>());
+        }
+        for(Expr expr : exprs){
+            int level = 0;
+            for(Var v : expr.getVarsMentioned()){
+                Integer s = slotOf.get(v);
+                level = Math.max(level, s == null ? this.triples.length : boundAfter(s));
+            }
+            levels.get(level).add(expr);
+        }
+        this.filters = new Expr[levels.size()][];
+        for(int i = 0; i < levels.size(); i++){
+            this.filters[i] = levels.get(i).toArray(new Expr[0]);
+        }
+    }
+
+    /**
+     * @param op the algebra expression of a pattern
+     * @return the matcher, or null if the expression contains operators other than a basic graph pattern and filters
+     */
+    public static NativePatternMatcher compile(Op op){
+        List<Expr> exprs = new ArrayList<>();
+        while(op instanceof OpFilter){
+            for(Expr expr : ((OpFilter) op).getExprs()){
+                if(containsPattern(expr))
+                    return null;
+                exprs.add(expr);
+            }
+            op = ((OpFilter) op).getSubOp();
+        }
+        if(!(op instanceof OpBGP))
+            return null;
+        return new NativePatternMatcher(((OpBGP) op).getPattern().getList(), exprs);
+    }
+
+    private static boolean containsPattern(Expr expr){
+        if(expr instanceof ExprFunctionOp)
+            return true;
+        if(expr instanceof ExprFunction){
+            for(Expr arg : ((ExprFunction) expr).getArgs()){
+                if(containsPattern(arg))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static int score(Triple t, Map<Var, Integer> bound){
+        int score = 0;
+        //the object is weighted higher because rdf:type with a concrete class is more selective than a concrete subject
+        if(!Var.isVar(t.getSubject()) || bound.containsKey(Var.alloc(t.getSubject())))
+            score += 2;
+        if(!Var.isVar(t.getPredicate()) || bound.containsKey(Var.alloc(t.getPredicate())))
+            score += 1;
+        if(!Var.isVar(t.getObject()) || bound.containsKey(Var.alloc(t.getObject())))
+            score += 3;
+        return score;
+    }
+
+    private static int slot(Node n, Map<Var, Integer> slotOf){
+        return Var.isVar(n) ? slotOf.get(Var.alloc(n)) : -1;
+    }
+
+    /**
+     * @return the number of triples which have to be matched until the slot is bound
+     */
+    private int boundAfter(int slot){
+        for(int i = 0; i < this.slots.length; i++){
+            for(int s : this.slots[i]){
+                if(s == slot)
+                    return i + 1;
+            }
+        }
+        return this.triples.length;
+    }
+
+    /**
+     * @param graph the graph
+     * @return true if the pattern has at least one match in the graph
+     */
+    public boolean ask(Graph graph){
+        return match(graph, 0, new Node[this.vars.length]);
+    }
+
+    private boolean match(Graph graph, int level, Node[] binding){
+        if(!filter(level, binding))
+            return false;
+        if(level == this.triples.length)
+            return true;
+        Triple t = this.triples[level];
+        int[] s = this.slots[level];
+        Node subject = resolve(t.getSubject(), s[0], binding);
+        Node predicate = resolve(t.getPredicate(), s[1], binding);
+        Node object = resolve(t.getObject(), s[2], binding);
+        ExtendedIterator<Triple> it = graph.find(subject, predicate, object);
+        try {
+            while(it.hasNext()){
+                Triple found = it.next();
+                Node[] next = binding.clone();
+                if(bind(next, s[0], subject, found.getSubject())
+                        && bind(next, s[1], predicate, found.getPredicate())
+                        && bind(next, s[2], object, found.getObject())
+                        && match(graph, level + 1, next))
+                    return true;
+            }
+            return false;
+        } finally {
+            it.close();
+        }
+    }
+
+    private static Node resolve(Node n, int slot, Node[] binding){
+        if(slot < 0)
+            return n;
+        Node value = binding[slot];
+        return value == null ? Node.ANY : value;
+    }
+
+    /**
+     * Binds the slot if the position was a wildcard. A variable occurring twice in the same triple is bound by the first
+     * position and compared (as term, like the SPARQL engine) at the second one.
+     */
+    private static boolean bind(Node[] binding, int slot, Node lookup, Node value){
+        if(slot < 0 || lookup != Node.ANY)
+            return true;
+        Node bound = binding[slot];
+        if(bound == null){
+            binding[slot] = value;
+            return true;
+        }
+        return bound.equals(value);
+    }
+
+    private boolean filter(int level, Node[] binding){
+        Expr[] exprs = this.filters[level];
+        if(exprs.length == 0)
+            return true;
+        BindingMap b = BindingFactory.create();
+        for(int i = 0; i < binding.length; i++){
+            if(binding[i] != null)
+                b.add(this.vars[i], binding[i]);
+        }
+        for(Expr expr : exprs){
+            if(!expr.isSatisfied(b, ENV))
+                return false;
+        }
+        return true;
+    }
+}
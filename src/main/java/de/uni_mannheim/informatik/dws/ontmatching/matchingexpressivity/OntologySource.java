@@ -0,0 +1,314 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An ontology read from a file, an input stream or a channel - the bytes are streamed to the parser, never copied into a String.
+ * <p>
+ * Compressed input (gzip, bzip2, xz) is detected by its magic bytes and decompressed on a separate thread,
+ * which reads ahead while the parser works on the previous chunks.
+ * The serialization is taken from the file name (without the compression extension) or guessed from the first bytes of the content.
+ * A source can be parsed only once.
+ * @author shertlin
+ */
+public class OntologySource implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OntologySource.class);
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int CHUNKS_AHEAD = 16;
+    private static final int SNIFF_SIZE = 1024;
+
+    public enum Compression { NONE, GZIP, BZIP2, XZ }
+
+    private final InputStream in;
+    private final Lang language;
+    private final Compression compression;
+    private final String name;
+
+    private OntologySource(InputStream in, Lang language, Compression compression, String name) {
+        this.in = in;
+        this.language = language;
+        this.compression = compression;
+        this.name = name;
+    }
+
+    /**
+     * @param file the ontology file, possibly compressed
+     * @return the source
+     * @throws IOException if the file can not be opened
+     */
+    public static OntologySource open(Path file) throws IOException {
+        return open(file, null);
+    }
+
+    /**
+     * @param file the ontology file, possibly compressed
+     * @param language the serialization - if null, it is detected from the file name or content
+     * @return the source
+     * @throws IOException if the file can not be opened
+     */
+    public static OntologySource open(Path file, Lang language) throws IOException {
+        return of(Files.newInputStream(file), language, file.toString());
+    }
+
+    /**
+     * @param channel the ontology bytes, possibly compressed
+     * @param language the serialization - if null, it is detected from the name or content
+     * @param name used to detect the serialization and for logging, may be null
+     * @return the source
+     * @throws IOException if the first bytes can not be read
+     */
+    public static OntologySource of(ReadableByteChannel channel, Lang language, String name) throws IOException {
+        return of(Channels.newInputStream(channel), language, name);
+    }
+
+    /**
+     * @param stream the ontology bytes, possibly compressed - it is closed together with the source
+     * @param language the serialization - if null, it is detected from the name or content
+     * @param name used to detect the serialization and for logging, may be null
+     * @return the source
+     * @throws IOException if the first bytes can not be read
+     */
+    public static OntologySource of(InputStream stream, Lang language, String name) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(stream, CHUNK_SIZE);
+        try {
+            Compression compression = detectCompression(peek(buffered, 6));
+            InputStream content = buffered;
+            if(compression != Compression.NONE){
+                content = new BufferedInputStream(new ReadAheadInputStream(decompress(buffered, compression), name), CHUNK_SIZE);
+            }
+            Lang lang = language;
+            if(lang == null && name != null)
+                lang = filenameToLang(name);
+            if(lang == null)
+                lang = detectLanguage(peek(content, SNIFF_SIZE));
+            LOGGER.debug("Read {} as {} ({})", name, lang.getName(), compression);
+            return new OntologySource(content, lang, compression, name);
+        } catch (IOException | RuntimeException ex) {
+            buffered.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param magic the first bytes of the input
+     * @return the compression format
+     */
+    static Compression detectCompression(byte[] magic){
+        if(magic.length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b)
+            return Compression.GZIP;
+        if(magic.length >= 3 && magic[0] == 'B' && magic[1] == 'Z' && magic[2] == 'h')
+            return Compression.BZIP2;
+        if(magic.length >= 6 && (magic[0] & 0xff) == 0xfd && magic[1] == '7' && magic[2] == 'z' && magic[3] == 'X' && magic[4] == 'Z' && magic[5] == 0)
+            return Compression.XZ;
+        return Compression.NONE;
+    }
+
+    /**
+     * @param head the first (decompressed) bytes of the input
+     * @return RDF/XML for XML content, JSON-LD for JSON content, Turtle otherwise (which also reads N-Triples)
+     */
+    static Lang detectLanguage(byte[] head){
+        String text = new String(head, StandardCharsets.UTF_8);
+        int i = 0;
+        while(i < text.length() && (Character.isWhitespace(text.charAt(i)) || text.charAt(i) == '\uFEFF')){
+            i++;
+        }
+        if(text.startsWith("<?xml", i) || text.startsWith("<rdf:RDF", i) || text.startsWith("<!DOCTYPE", i) || text.startsWith("<!--", i))
+            return Lang.RDFXML;
+        if(text.startsWith("{", i) || text.startsWith("[", i))
+            return Lang.JSONLD;
+        return Lang.TURTLE;
+    }
+
+    /**
+     * @param name a file name
+     * @return the serialization given by the extension (a compression extension .gz, .bz2 or .xz is skipped), or null
+     */
+    public static Lang filenameToLang(String name){
+        return RDFLanguages.filenameToLang(stripCompression(name));
+    }
+
+    private static String stripCompression(String name){
+        for(String ext : Arrays.asList(".gz", ".bz2", ".xz")){
+            if(name.endsWith(ext))
+                return name.substring(0, name.length() - ext.length());
+        }
+        return name;
+    }
+
+    private static byte[] peek(InputStream in, int length) throws IOException {
+        in.mark(length);
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while(read < length){
+            int n = in.read(bytes, read, length - read);
+            if(n < 0)
+                break;
+            read += n;
+        }
+        in.reset();
+        return read == length ? bytes : Arrays.copyOf(bytes, read);
+    }
+
+    private static InputStream decompress(InputStream in, Compression compression) throws IOException {
+        switch(compression){
+            case GZIP:
+                return new GZIPInputStream(in, CHUNK_SIZE);
+            case BZIP2:
+                return new BZip2CompressorInputStream(in, true);
+            case XZ:
+                return new XZCompressorInputStream(in, true);
+            default:
+                return in;
+        }
+    }
+
+    /**
+     * Parses the whole source into the destination.
+     * @param destination receives the triples
+     */
+    public void parse(StreamRDF destination){
+        RDFParser.source(this.in).lang(this.language).parse(destination);
+    }
+
+    /**
+     * @return the (decompressed) content
+     */
+    public InputStream getStream() {
+        return in;
+    }
+
+    public Lang getLanguage() {
+        return language;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * Reads the wrapped stream on a daemon thread into a bounded queue of chunks.
+     * Errors of the reader are thrown by {@link #read(byte[], int, int)}, closing stops the reader.
+     */
+    private static class ReadAheadInputStream extends InputStream {
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+        private final InputStream source;
+        private final Thread reader;
+        private volatile Throwable error;
+        private byte[] current;
+        private int position;
+
+        ReadAheadInputStream(InputStream source, String name) {
+            this.source = source;
+            this.reader = new Thread(this::pump, "decompress-" + name);
+            this.reader.setDaemon(true);
+            this.reader.start();
+        }
+
+        private void pump(){
+            try {
+                while(true){
+                    byte[] buffer = new byte[CHUNK_SIZE];
+                    int n = this.source.read(buffer);
+                    if(n < 0)
+                        break;
+                    if(n > 0)
+                        this.chunks.put(n == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, n));
+                }
+            } catch (InterruptedException ex) {
+                //closed
+            } catch (Throwable ex) {
+                this.error = ex;
+            } finally {
+                //the reader must not wait forever, whatever happened
+                try {
+                    this.chunks.put(END);
+                } catch (InterruptedException ex) {
+                    //closed meanwhile
+                    this.chunks.clear();
+                    this.chunks.offer(END);
+                }
+            }
+        }
+
+        private boolean next() throws IOException {
+            if(this.current == END)
+                return false;
+            if(this.current == null || this.position == this.current.length){
+                try {
+                    this.current = this.chunks.take();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+                }
+                this.position = 0;
+                if(this.current == END){
+                    if(this.error instanceof IOException)
+                        throw (IOException) this.error;
+                    if(this.error != null)
+                        throw new IOException("Could not decompress the input", this.error);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if(!next())
+                return -1;
+            return this.current[this.position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0)
+                return 0;
+            if(!next())
+                return -1;
+            int n = Math.min(len, this.current.length - this.position);
+            System.arraycopy(this.current, this.position, b, off, n);
+            this.position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.interrupt();
+            this.chunks.clear();
+            this.source.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * Result of a deadline bounded check: the status of each construct.
+ * If no construct is {@link ConstructStatus#UNKNOWN}, the result is complete and equal to a check without deadline.
+ * @author shertlin
+ */
+public class PartialExpressivityResult {
+
+    private final Map<Construct, ConstructStatus> status;
+
+    public PartialExpressivityResult(Map<Construct, ConstructStatus> status) {
+        this.status = Collections.unmodifiableMap(new EnumMap<>(status));
+    }
+
+    /**
+     * @param c the construct
+     * @return the status of the construct - unknown if it was not checked
+     */
+    public ConstructStatus getStatus(Construct c) {
+        return status.getOrDefault(c, ConstructStatus.UNKNOWN);
+    }
+
+    public Map<Construct, ConstructStatus> getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the constructs which are proven to occur (raw, without any merge rules)
+     */
+    public Set<Construct> getProven() {
+        return getWithStatus(ConstructStatus.PROVEN);
+    }
+
+    /**
+     * @return the constructs which could not be decided
+     */
+    public Set<Construct> getUnknown() {
+        return getWithStatus(ConstructStatus.UNKNOWN);
+    }
+
+    /**
+     * @return true if every construct is either proven or disproven
+     */
+    public boolean isComplete() {
+        return getUnknown().isEmpty();
+    }
+
+    private Set<Construct> getWithStatus(ConstructStatus s) {
+        Set<Construct> constructs = EnumSet.noneOf(Construct.class);
+        for(Construct c : Construct.values()){
+            if(getStatus(c) == s)
+                constructs.add(c);
+        }
+        return constructs;
+    }
+
+    @Override
+    public String toString() {
+        return status.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency and hit rate of each pattern, recorded while checking and persisted across runs.
+ * One instance (file) should be used per endpoint or per corpus of similar ontologies.
+ * <p>
+ * The patterns are ordered by their expected cost per match, i.e. mean latency divided by the probability of a match.
+ * For a set of patterns where the first match ends the check, this order minimizes the expected cost.
+ * Patterns without statistics get the mean latency and a hit rate of 0.5, thus they are tried early enough to learn about them.
+ * @author shertlin
+ */
+public class PatternStatistics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PatternStatistics.class);
+
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Creates statistics which are only kept in memory.
+     */
+    public PatternStatistics() {
+        this.file = null;
+    }
+
+    /**
+     * Loads the statistics from the file if it exists. {@link #save()} writes them back.
+     * @param file the file of the statistics
+     */
+    public PatternStatistics(Path file) {
+        this.file = file;
+        if(Files.exists(file)){
+            try {
+                for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+                    String[] parts = line.split("\t", 4);
+                    if(parts.length < 4)
+                        continue;
+                    Entry e = new Entry();
+                    e.runs = Long.parseLong(parts[0]);
+                    e.hits = Long.parseLong(parts[1]);
+                    e.totalNanos = Long.parseLong(parts[2]);
+                    this.entries.put(parts[3], e);
+                }
+            } catch (IOException | NumberFormatException ex) {
+                LOGGER.warn("Could not read pattern statistics {} - start without statistics", file, ex);
+                this.entries.clear();
+            }
+        }
+    }
+
+    /**
+     * @param directory the directory which contains the statistics of all scopes
+     * @param scope e.g. the endpoint and graph, or the name of a corpus
+     * @return the statistics of this scope
+     */
+    public static PatternStatistics forScope(Path directory, String scope){
+        return new PatternStatistics(directory.resolve(Sha256.hash(scope) + ".tsv"));
+    }
+
+    /**
+     * Records one execution of a pattern.
+     * @param pattern the pattern
+     * @param hit true if it matched
+     * @param nanos the time it took
+     */
+    public synchronized void record(String pattern, boolean hit, long nanos){
+        Entry e = this.entries.computeIfAbsent(QueryCatalog.normalizePattern(pattern), k -> new Entry());
+        e.runs++;
+        if(hit)
+            e.hits++;
+        e.totalNanos += nanos;
+    }
+
+    /**
+     * @param patterns the patterns
+     * @return the patterns ordered by their expected cost per match (ascending), ties keep the given order
+     */
+    public synchronized List<String> order(Collection<String> patterns){
+        double defaultLatency = getMeanLatency();
+        Map<String, Double> cost = new HashMap<>();
+        for(String pattern : patterns){
+            cost.put(pattern, getExpectedCost(pattern, defaultLatency));
+        }
+        List<String> ordered = new ArrayList<>(patterns);
+        ordered.sort(Comparator.comparingDouble(cost::get));
+        return ordered;
+    }
+
+    private double getExpectedCost(String pattern, double defaultLatency){
+        Entry e = this.entries.get(QueryCatalog.normalizePattern(pattern));
+        if(e == null || e.runs == 0)
+            return defaultLatency / 0.5;
+        //laplace smoothing, thus a pattern which never matched is not excluded forever
+        double hitRate = (e.hits + 1.0) / (e.runs + 2.0);
+        return ((double) e.totalNanos / e.runs) / hitRate;
+    }
+
+    private double getMeanLatency(){
+        long runs = 0;
+        long nanos = 0;
+        for(Entry e : this.entries.values()){
+            runs += e.runs;
+            nanos += e.totalNanos;
+        }
+        return runs == 0 ? 1.0 : (double) nanos / runs;
+    }
+
+    /**
+     * @param pattern the pattern
+     * @return number of recorded executions
+     */
+    public synchronized long getRuns(String pattern){
+        Entry e = this.entries.get(QueryCatalog.normalizePattern(pattern));
+        return e == null ? 0 : e.runs;
+    }
+
+    /**
+     * @param pattern the pattern
+     * @return number of recorded executions which matched
+     */
+    public synchronized long getHits(String pattern){
+        Entry e = this.entries.get(QueryCatalog.normalizePattern(pattern));
+        return e == null ? 0 : e.hits;
+    }
+
+    /**
+     * Writes the statistics to the file (if this instance has one). The file is replaced atomically.
+     */
+    public synchronized void save(){
+        if(this.file == null)
+            return;
+        try {
+            Path dir = this.file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "statistics", ".tmp");
+            try(BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)){
+                for(Map.Entry<String, Entry> entry : this.entries.entrySet()){
+                    Entry e = entry.getValue();
+                    writer.write(e.runs + "\t" + e.hits + "\t" + e.totalNanos + "\t" + entry.getKey());
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write pattern statistics " + this.file, ex);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private static class Entry {
+        long runs;
+        long hits;
+        long totalNanos;
+    }
+}
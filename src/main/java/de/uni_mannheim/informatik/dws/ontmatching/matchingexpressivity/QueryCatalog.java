@@ -0,0 +1,415 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.Op1;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpExtend;
+import org.apache.jena.sparql.algebra.op.OpFilter;
+import org.apache.jena.sparql.algebra.op.OpJoin;
+import org.apache.jena.sparql.algebra.op.OpModifier;
+import org.apache.jena.sparql.algebra.op.OpSequence;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.vocabulary.RDF;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable catalog of the construct patterns. Every distinct pattern is parsed exactly once
+ * and the parsed query pattern and its algebra are shared by all checkers.
+ * Queries for a specific graph are created by adding the FROM clause to a new query object
+ * which reuses the parsed pattern (no re-parsing).
+ * <p>
+ * Besides the built-in patterns, additional patterns can be loaded from a text file with one pattern per line:
+ * <pre>
+ * # comment
+ * PREFIX ex: &lt;http://example.com/&gt;
+ * ROLE_TRANSITIVE ?x a ex:TransitiveRelation.
+ * </pre>
+ * The first token is the name of the construct, the rest of the line is the pattern.
+ * The process wide default catalog is extended with the file given in the system property {@value #CATALOG_PROPERTY}
+ * (a file path or a classpath resource).
+ */
+public final class QueryCatalog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryCatalog.class);
+
+    /**
+     * System property which points to a catalog file which extends the default catalog.
+     */
+    public static final String CATALOG_PROPERTY = "dlexpressivity.catalog";
+
+    public static final String DEFAULT_PREFIXES = "PREFIX owl:<http://www.w3.org/2002/07/owl#> PREFIX rdfs:<http://www.w3.org/2000/01/rdf-schema#> PREFIX rdf:<http://www.w3.org/1999/02/22-rdf-syntax-ns#>";
+
+    private final String prefixes;
+    private final Map<Construct, List<String>> constructToPatterns;
+    private final Map<String, Set<Construct>> patternToConstructs;
+    private final String version;
+    private volatile Compiled compiled;
+
+    private QueryCatalog(String prefixes, Map<Construct, List<String>> constructToQueries) {
+        this.prefixes = prefixes;
+
+        Map<Construct, List<String>> constructs = new EnumMap<>(Construct.class);
+        Map<String, Set<Construct>> patterns = new LinkedHashMap<>();
+        for(Construct c : Construct.values()){
+            List<String> queries = constructToQueries.get(c);
+            if(queries == null)
+                continue;
+            List<String> normalized = new ArrayList<>();
+            for(String query : queries){
+                String pattern = normalizePattern(query);
+                normalized.add(pattern);
+                patterns.computeIfAbsent(pattern, k -> EnumSet.noneOf(Construct.class)).add(c);
+            }
+            constructs.put(c, Collections.unmodifiableList(normalized));
+        }
+        this.constructToPatterns = Collections.unmodifiableMap(constructs);
+        for(Map.Entry<String, Set<Construct>> entry : patterns.entrySet()){
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        this.patternToConstructs = Collections.unmodifiableMap(patterns);
+
+        //the construct bitmasks depend on the ordinals, thus the constructs are part of the version
+        StringBuilder fingerprint = new StringBuilder(prefixes);
+        for(Construct c : Construct.values()){
+            fingerprint.append('\n').append(c.name());
+            for(String pattern : constructs.getOrDefault(c, Collections.emptyList())){
+                fingerprint.append('\n').append(pattern);
+            }
+        }
+        this.version = Sha256.hash(fingerprint.toString()).substring(0, 16);
+    }
+
+    /**
+     * The patterns are parsed and compiled on first use, thus checkers which do not execute SPARQL
+     * (e.g. the streaming checker) do not pay for the query parser at startup.
+     */
+    private Compiled compiled(){
+        Compiled c = this.compiled;
+        if(c == null){
+            synchronized(this){
+                c = this.compiled;
+                if(c == null){
+                    c = new Compiled(this.prefixes, this.patternToConstructs.keySet());
+                    this.compiled = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    private static class Compiled {
+        final Map<String, Element> elements;
+        final Map<String, Op> algebra;
+        final PrefixMapping prefixMapping;
+        final List<Triple> vocabulary;
+        final Map<String, BitSet> requiredVocabulary;
+        final VocabularyProjection projection;
+        final Map<String, NativePatternMatcher> matchers;
+
+        Compiled(String prefixes, Set<String> patterns){
+            Map<String, Element> parsedElements = new LinkedHashMap<>();
+            Map<String, Op> compiledAlgebra = new LinkedHashMap<>();
+            PrefixMapping mapping = null;
+            for(String pattern : patterns){
+                Query query = QueryFactory.create(String.format("%s ASK WHERE{ %s }", prefixes, pattern));
+                parsedElements.put(pattern, query.getQueryPattern());
+                compiledAlgebra.put(pattern, Algebra.compile(query));
+                mapping = query.getPrefixMapping();
+            }
+            if(mapping == null)
+                mapping = QueryFactory.create(prefixes + " ASK WHERE{}").getPrefixMapping();
+            this.prefixMapping = mapping.lock();
+            this.elements = Collections.unmodifiableMap(parsedElements);
+            this.algebra = Collections.unmodifiableMap(compiledAlgebra);
+
+            List<Triple> terms = new ArrayList<>();
+            Map<String, BitSet> required = new LinkedHashMap<>();
+            for(Map.Entry<String, Op> entry : compiledAlgebra.entrySet()){
+                BitSet bits = new BitSet();
+                for(Triple term : collectVocabulary(entry.getValue(), new LinkedHashSet<>())){
+                    int index = terms.indexOf(term);
+                    if(index < 0){
+                        index = terms.size();
+                        terms.add(term);
+                    }
+                    bits.set(index);
+                }
+                required.put(entry.getKey(), bits);
+            }
+            this.vocabulary = Collections.unmodifiableList(terms);
+            this.requiredVocabulary = Collections.unmodifiableMap(required);
+            this.projection = new VocabularyProjection(compiledAlgebra.values());
+
+            Map<String, NativePatternMatcher> nativeMatchers = new HashMap<>();
+            for(Map.Entry<String, Op> entry : compiledAlgebra.entrySet()){
+                NativePatternMatcher matcher = NativePatternMatcher.compile(entry.getValue());
+                if(matcher == null)
+                    LOGGER.debug("Pattern {} is executed by the SPARQL engine", entry.getKey());
+                else
+                    nativeMatchers.put(entry.getKey(), matcher);
+            }
+            this.matchers = Collections.unmodifiableMap(nativeMatchers);
+        }
+    }
+
+    /**
+     * Collects the vocabulary which has to occur in a graph such that the algebra expression can have a match:
+     * the concrete predicates (as triple pattern "ANY p ANY") and the concrete classes of rdf:type triples (as "ANY rdf:type C").
+     * Only triples which are required in any case (BGPs joined or filtered) are collected.
+     */
+    private static Set<Triple> collectVocabulary(Op op, Set<Triple> terms){
+        if(op instanceof OpBGP){
+            for(Triple t : ((OpBGP)op).getPattern()){
+                if(!t.getPredicate().isURI())
+                    continue;
+                if(t.getPredicate().equals(RDF.type.asNode()) && t.getObject().isURI()){
+                    terms.add(Triple.create(Node.ANY, t.getPredicate(), t.getObject()));
+                }else{
+                    terms.add(Triple.create(Node.ANY, t.getPredicate(), Node.ANY));
+                }
+            }
+        }else if(op instanceof OpFilter || op instanceof OpModifier || op instanceof OpExtend){
+            collectVocabulary(((Op1)op).getSubOp(), terms);
+        }else if(op instanceof OpJoin){
+            collectVocabulary(((OpJoin)op).getLeft(), terms);
+            collectVocabulary(((OpJoin)op).getRight(), terms);
+        }else if(op instanceof OpSequence){
+            for(Op sub : ((OpSequence)op).getElements()){
+                collectVocabulary(sub, terms);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * @param constructToQueries the patterns of each construct
+     * @return a catalog with the given patterns and the default prefixes
+     */
+    public static QueryCatalog create(Map<Construct, List<String>> constructToQueries){
+        return new QueryCatalog(DEFAULT_PREFIXES, constructToQueries);
+    }
+
+    /**
+     * @return the catalog with the built-in patterns of {@link JenaDLExpressivityChecker#createBuiltinConstructToSparqlQuery()}
+     */
+    public static QueryCatalog getBuiltin(){
+        return BuiltinHolder.BUILTIN;
+    }
+
+    /**
+     * @return the process wide catalog: the built-in patterns, extended by the file in system property {@value #CATALOG_PROPERTY} (if set)
+     */
+    public static QueryCatalog getDefault(){
+        return DefaultHolder.DEFAULT;
+    }
+
+    private static class BuiltinHolder {
+        static final QueryCatalog BUILTIN = create(JenaDLExpressivityChecker.createBuiltinConstructToSparqlQuery());
+    }
+
+    private static class DefaultHolder {
+        static final QueryCatalog DEFAULT = createDefault();
+
+        private static QueryCatalog createDefault(){
+            String location = System.getProperty(CATALOG_PROPERTY);
+            if(location == null || location.trim().isEmpty())
+                return getBuiltin();
+            LOGGER.info("Extend query catalog with {}", location);
+            try (InputStream in = open(location.trim())){
+                return getBuiltin().extend(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not load query catalog " + location, ex);
+            }
+        }
+
+        private static InputStream open(String location) throws IOException{
+            Path path = Paths.get(location);
+            if(Files.isRegularFile(path))
+                return Files.newInputStream(path);
+            InputStream in = QueryCatalog.class.getClassLoader().getResourceAsStream(location.startsWith("/") ? location.substring(1) : location);
+            if(in == null)
+                throw new IOException("Neither a file nor a classpath resource: " + location);
+            return in;
+        }
+    }
+
+    /**
+     * Creates a new catalog which contains all patterns of this catalog and the patterns in the given reader.
+     * @param reader the catalog file (format see class description)
+     * @return the extended catalog
+     * @throws IOException if reading fails
+     */
+    public QueryCatalog extend(Reader reader) throws IOException{
+        StringBuilder newPrefixes = new StringBuilder(this.prefixes);
+        Map<Construct, List<String>> newPatterns = new EnumMap<>(Construct.class);
+        for(Map.Entry<Construct, List<String>> entry : this.constructToPatterns.entrySet()){
+            newPatterns.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while((line = lines.readLine()) != null){
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#"))
+                continue;
+            if(line.regionMatches(true, 0, "PREFIX", 0, 6)){
+                newPrefixes.append(' ').append(line);
+                continue;
+            }
+            String[] parts = line.split("\\s+", 2);
+            if(parts.length != 2)
+                throw new IllegalArgumentException("Line " + lineNumber + " of query catalog has no pattern: " + line);
+            Construct c;
+            try{
+                c = Construct.valueOf(parts[0]);
+            }catch(IllegalArgumentException ex){
+                throw new IllegalArgumentException("Line " + lineNumber + " of query catalog has an unknown construct: " + parts[0], ex);
+            }
+            newPatterns.computeIfAbsent(c, k -> new ArrayList<>()).add(parts[1]);
+        }
+        QueryCatalog extended = new QueryCatalog(newPrefixes.toString(), newPatterns);
+        //report invalid patterns of the file right away
+        extended.compiled();
+        return extended;
+    }
+
+    static String normalizePattern(String pattern){
+        return pattern.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * @return a hash of the prefixes, patterns and constructs - results of checks are only comparable if the catalog has the same version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the SPARQL prefix declarations used by the patterns
+     */
+    public String getPrefixes() {
+        return prefixes;
+    }
+
+    /**
+     * @return the (whitespace normalized) patterns of each construct
+     */
+    public Map<Construct, List<String>> getConstructToPatterns() {
+        return constructToPatterns;
+    }
+
+    /**
+     * Index from each distinct pattern to all constructs it proves.
+     * Some patterns (e.g. owl:differentFrom) prove multiple constructs - with this index they are executed only once.
+     * @return the pattern index
+     */
+    public Map<String, Set<Construct>> getPatternToConstructs() {
+        return patternToConstructs;
+    }
+
+    /**
+     * @param pattern one of the patterns in {@link #getPatternToConstructs()}
+     * @return the parsed query pattern - it is shared and must not be modified
+     */
+    public Element getElement(String pattern) {
+        return compiled().elements.get(pattern);
+    }
+
+    /**
+     * @param pattern one of the patterns in {@link #getPatternToConstructs()}
+     * @return the algebra expression of the ASK query
+     */
+    public Op getAlgebra(String pattern) {
+        return compiled().algebra.get(pattern);
+    }
+
+    /**
+     * @param pattern one of the patterns in {@link #getPatternToConstructs()}
+     * @return the matcher which evaluates the pattern without the SPARQL engine, or null if the pattern needs the SPARQL engine
+     */
+    public NativePatternMatcher getMatcher(String pattern) {
+        return compiled().matchers.get(pattern);
+    }
+
+    /**
+     * @return the prefixes as (locked) prefix mapping
+     */
+    public PrefixMapping getPrefixMapping() {
+        return compiled().prefixMapping;
+    }
+
+    /**
+     * Creates an ASK query for the pattern. The parsed pattern is reused, thus no parsing is involved.
+     * @param pattern one of the patterns in {@link #getPatternToConstructs()}
+     * @param graph the graph which is added as FROM clause - null or empty for the default graph
+     * @return a new query object
+     */
+    public Query createAskQuery(String pattern, String graph) {
+        Query query = new Query();
+        query.setQueryAskType();
+        query.setPrefixMapping(getPrefixMapping());
+        query.setQueryPattern(getElement(pattern));
+        addGraph(query, graph);
+        return query;
+    }
+
+    /**
+     * @return the vocabulary used by all patterns: each entry is a triple pattern "ANY p ANY" or "ANY rdf:type C"
+     */
+    public List<Triple> getVocabulary() {
+        return compiled().vocabulary;
+    }
+
+    /**
+     * @return the triples which can be matched by the patterns of this catalog - only these have to be loaded
+     */
+    public VocabularyProjection getProjection() {
+        return compiled().projection;
+    }
+
+    /**
+     * Checks if a pattern can match at all.
+     * @param pattern one of the patterns in {@link #getPatternToConstructs()}
+     * @param presentVocabulary bit i is set if entry i of {@link #getVocabulary()} occurs in the graph
+     * @return false if the pattern requires vocabulary which does not occur in the graph
+     */
+    public boolean canMatch(String pattern, BitSet presentVocabulary) {
+        BitSet required = (BitSet) compiled().requiredVocabulary.get(pattern).clone();
+        required.andNot(presentVocabulary);
+        return required.isEmpty();
+    }
+
+    static void addGraph(Query query, String graph){
+        if(graph != null && graph.length() > 0)
+            query.addGraphURI(graph);
+    }
+}
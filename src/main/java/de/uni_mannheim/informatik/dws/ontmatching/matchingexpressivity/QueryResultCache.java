@@ -0,0 +1,263 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of query results on disk, keyed by endpoint, graph and query.
+ * Each dataset (endpoint + graph) has its own directory with one small file per query.
+ * Entries expire after a time to live and the least recently used entries are removed if the cache grows
+ * above its maximum size. The size is tracked while entries are written, thus the directory is only listed when the
+ * cache is full (entries written by other processes are counted from then on).
+ * Optionally a dataset is invalidated when a probe (e.g. a modification date or the number of triples) changes.
+ * Files are replaced atomically, thus multiple checkers (also in different processes) can share one cache directory.
+ * @author shertlin
+ */
+public class QueryResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultCache.class);
+
+    private static final String PROBE_FILE = "probe";
+    private static final String ENTRY_SUFFIX = ".result";
+
+    protected Path directory;
+    protected Duration timeToLive = Duration.ofDays(7);
+    protected long maxSizeBytes = 10L * 1024 * 1024;
+
+    /** the size of all entries as far as known to this instance, negative if it was not computed yet */
+    private final AtomicLong size = new AtomicLong(-1);
+
+    /**
+     * @param directory the cache directory - it is created if it does not exist
+     */
+    public QueryResultCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param endpoint the endpoint
+     * @param graph the graph (can be null)
+     * @param query the query
+     * @return the cached result or null if there is no entry or it is expired
+     */
+    public String get(String endpoint, String graph, String query){
+        Path file = getDatasetDirectory(endpoint, graph).resolve(Sha256.hash(query) + ENTRY_SUFFIX);
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if(lines.size() < 2 || isExpired(Long.parseLong(lines.get(0)))){
+                Files.deleteIfExists(file);
+                return null;
+            }
+            //last modified time is the last access for the LRU eviction
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return lines.get(1);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | NumberFormatException ex) {
+            LOGGER.warn("Could not read cache entry {}", file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a result. Afterwards least recently used entries are removed if the cache is too large.
+     * @param endpoint the endpoint
+     * @param graph the graph (can be null)
+     * @param query the query
+     * @param result the result - one line of text
+     */
+    public void put(String endpoint, String graph, String query, String result){
+        Path file = getDatasetDirectory(endpoint, graph).resolve(Sha256.hash(query) + ENTRY_SUFFIX);
+        byte[] content = (System.currentTimeMillis() + "\n" + result.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8);
+        long replaced = sizeOf(file);
+        write(file, content);
+        if(this.size.get() < 0 || this.size.addAndGet(content.length - replaced) > this.maxSizeBytes)
+            evict();
+    }
+
+    /**
+     * Compares the probe result of the dataset (e.g. the number of triples or a modification date) with the one
+     * stored in the cache. If it is different, all entries of the dataset are removed.
+     * @param endpoint the endpoint
+     * @param graph the graph (can be null)
+     * @param probe the current probe result
+     * @return true if the cached entries of the dataset are still valid
+     */
+    public boolean validate(String endpoint, String graph, String probe){
+        Path datasetDirectory = getDatasetDirectory(endpoint, graph);
+        Path probeFile = datasetDirectory.resolve(PROBE_FILE);
+        String stored = null;
+        try {
+            stored = new String(Files.readAllBytes(probeFile), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException ex) {
+            // no probe stored yet
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read probe {}", probeFile, ex);
+        }
+        if(probe.equals(stored))
+            return true;
+        LOGGER.info("Dataset {} {} changed (probe {} instead of {}) - invalidate cached results", endpoint, graph, probe, stored);
+        clear(datasetDirectory);
+        this.size.set(-1);
+        write(probeFile, probe.getBytes(StandardCharsets.UTF_8));
+        return false;
+    }
+
+    /**
+     * Removes all entries of all datasets.
+     */
+    public void clear(){
+        try(Stream<Path> datasets = list(this.directory)){
+            datasets.filter(Files::isDirectory).forEach(QueryResultCache::clear);
+        }
+        this.size.set(-1);
+    }
+
+    private static void clear(Path datasetDirectory){
+        try(Stream<Path> files = list(datasetDirectory)){
+            files.forEach(QueryResultCache::deleteQuietly);
+        }
+    }
+
+    /**
+     * Lists all entries and, if they are larger than {@link #getMaxSizeBytes()}, removes the least recently used ones until
+     * the cache is at 90% of the maximum size (thus the next entries can be added without listing the directory again).
+     */
+    public void evict(){
+        List<Path> entries = new ArrayList<>();
+        try(Stream<Path> datasets = list(this.directory)){
+            for(Path dataset : datasets.filter(Files::isDirectory).collect(Collectors.toList())){
+                try(Stream<Path> files = list(dataset)){
+                    files.filter(f -> f.getFileName().toString().endsWith(ENTRY_SUFFIX)).forEach(entries::add);
+                }
+            }
+        }
+        long size = 0;
+        List<Entry> withTime = new ArrayList<>();
+        for(Path entry : entries){
+            try {
+                long length = Files.size(entry);
+                size += length;
+                withTime.add(new Entry(entry, Files.getLastModifiedTime(entry).toMillis(), length));
+            } catch (IOException ex) {
+                // removed concurrently
+            }
+        }
+        if(size > this.maxSizeBytes){
+            long target = this.maxSizeBytes - this.maxSizeBytes / 10;
+            withTime.sort(Comparator.comparingLong(e -> e.lastAccess));
+            for(Entry e : withTime){
+                if(size <= target)
+                    break;
+                deleteQuietly(e.path);
+                size -= e.size;
+            }
+        }
+        this.size.set(size);
+    }
+
+    private static long sizeOf(Path file){
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private boolean isExpired(long created){
+        return System.currentTimeMillis() - created > this.timeToLive.toMillis();
+    }
+
+    private Path getDatasetDirectory(String endpoint, String graph){
+        return this.directory.resolve(Sha256.hash(endpoint + "\n" + (graph == null ? "" : graph)));
+    }
+
+    private static void write(Path file, byte[] content){
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            Files.write(temp, content);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write cache entry " + file, ex);
+        }
+    }
+
+    private static Stream<Path> list(Path dir){
+        if(!Files.isDirectory(dir))
+            return Stream.empty();
+        List<Path> paths = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)){
+            stream.forEach(paths::add);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not list cache directory {}", dir, ex);
+        }
+        return paths.stream();
+    }
+
+    private static void deleteQuietly(Path file){
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete cache entry {}", file, ex);
+        }
+    }
+
+    private static class Entry {
+        final Path path;
+        final long lastAccess;
+        final long size;
+
+        Entry(Path path, long lastAccess, long size) {
+            this.path = path;
+            this.lastAccess = lastAccess;
+            this.size = size;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive how long a result is used, default 7 days
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    /**
+     * @param maxSizeBytes maximum size of all entries, default 10 MB
+     */
+    public void setMaxSizeBytes(long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+}
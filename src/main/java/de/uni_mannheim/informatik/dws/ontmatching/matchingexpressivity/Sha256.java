@@ -0,0 +1,68 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hashes as lower case hex strings, used as keys of the caches and stores.
+ * @author shertlin
+ */
+final class Sha256 {
+
+    private Sha256() {
+    }
+
+    /**
+     * @param text the text (UTF-8 encoded)
+     * @return the hash
+     */
+    static String hash(String text){
+        return hash(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param bytes the bytes
+     * @return the hash
+     */
+    static String hash(byte[] bytes){
+        return hex(digest().digest(bytes));
+    }
+
+    /**
+     * @param file the file (the bytes as stored, i.e. compressed files are not decompressed)
+     * @return the hash of the content
+     * @throws IOException if the file can not be read
+     */
+    static String hash(Path file) throws IOException {
+        MessageDigest digest = digest();
+        byte[] buffer = new byte[1 << 16];
+        try(InputStream in = Files.newInputStream(file)){
+            int n;
+            while((n = in.read(buffer)) >= 0){
+                digest.update(buffer, 0, n);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest digest(){
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private static String hex(byte[] digest){
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for(byte b : digest){
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
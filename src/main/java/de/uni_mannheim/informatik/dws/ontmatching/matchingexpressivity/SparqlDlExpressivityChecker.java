@@ -1,9 +1,52 @@
 package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.riot.web.HttpOp;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.syntax.Element;
+import org.apache.jena.sparql.syntax.ElementBind;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.syntax.ElementNamedGraph;
+import org.apache.jena.sparql.syntax.ElementSubQuery;
+import org.apache.jena.sparql.syntax.ElementUnion;
 import org.semanticweb.owlapi.util.Construct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,18 +55,47 @@ import org.slf4j.LoggerFactory;
 public class SparqlDlExpressivityChecker extends JenaDLExpressivityChecker{
     private static final Logger LOGGER = LoggerFactory.getLogger(SparqlDlExpressivityChecker.class);
     
+    /**
+     * Default number of constructs which are combined in one batched SELECT query.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 8;
+    
+    /**
+     * Probe for {@link #setCacheProbe(String)} which invalidates the cached results when the number of triples changes.
+     * Counting is a full scan of the dataset - on large endpoints it can take as long as the check itself
+     * (or hit the timeout), thus prefer {@link #MODIFIED_PROBE} if the endpoint publishes a modification date.
+     */
+    public static final String TRIPLE_COUNT_PROBE = "SELECT (COUNT(*) AS ?count) WHERE { ?s ?p ?o }";
+    
+    /**
+     * Probe for {@link #setCacheProbe(String)} which invalidates the cached results when the modification date
+     * (<code>dcterms:modified</code>) in the VoID description of the dataset changes. Only the few dataset descriptions are read.
+     */
+    public static final String MODIFIED_PROBE = "SELECT (MAX(?modified) AS ?lastModified) WHERE { "
+            + "?dataset a <http://rdfs.org/ns/void#Dataset>; <http://purl.org/dc/terms/modified> ?modified }";
+    
     protected String endoint;
     protected String graph;
-    protected String queryTemplate;
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+    protected int maxConcurrentQueries = 1;
+    protected QueryResultCache cache;
+    protected String cacheProbe;
+    protected Duration queryTimeout;
+    protected int maxRetries = 2;
+    protected long initialBackoffMillis = 500;
+    
+    /**
+     * Current waiting time before a retry. It doubles with each transient failure and halves with each success,
+     * thus an overloaded endpoint gets more time to recover.
+     */
+    private final AtomicLong backoffMillis = new AtomicLong(-1);
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+    
+    static final long NO_DEADLINE = Long.MIN_VALUE;
     
     public SparqlDlExpressivityChecker(String endoint, String graph) {
         this.endoint = trimIfNotNull(endoint);
         this.graph = trimIfNotNull(graph);
-        if(this.graph == null || this.graph.length() == 0){
-            this.queryTemplate = sparqlPrefixes + " ASK WHERE{ %s }";
-        }else{
-            this.queryTemplate = sparqlPrefixes + " ASK FROM <" + this.graph + "> WHERE{ %s }";
-        }
     }
     public SparqlDlExpressivityChecker(String endoint) {
         this(endoint, null);
@@ -31,20 +103,517 @@ public class SparqlDlExpressivityChecker extends JenaDLExpressivityChecker{
 
     @Override
     protected void checkConstructs() {
-        for(Map.Entry<Construct, List<String>> entry : this.constructToSparqlQuery.entrySet()){
-            LOGGER.info("Check for construct {}", entry.getKey());
-            for(String s : entry.getValue()){
-                String query = String.format(this.queryTemplate, s);
-                try (QueryExecution qe = QueryExecutionFactory.sparqlService(this.endoint, query)){
-                    if(qe.execAsk()){
-                        addConstruct(entry.getKey());
-                        break;
-                    }
+        if(this.cache != null && this.cacheProbe != null)
+            this.cache.validate(this.endoint, this.graph, probe());
+        if(this.batchSize <= 0){
+            checkConstructsWithAsk(this.constructToSparqlQuery.keySet());
+            return;
+        }
+        List<Construct> constructs = new ArrayList<>();
+        for(Construct c : this.constructToSparqlQuery.keySet()){
+            if(!this.constructToSparqlQuery.get(c).isEmpty() && !isFound(Collections.singleton(c)))
+                constructs.add(c);
+        }
+        List<Construct> rejected = Collections.synchronizedList(new ArrayList<>());
+        List<Runnable> tasks = new ArrayList<>();
+        for(int i = 0; i < constructs.size(); i += this.batchSize){
+            List<Construct> batch = constructs.subList(i, Math.min(i + this.batchSize, constructs.size()));
+            tasks.add(() -> {
+                LOGGER.info("Check for constructs {}", batch);
+                try {
+                    checkConstructsBatched(batch);
+                } catch (QueryExceptionHTTP ex) {
+                    if(ex.getResponseCode() <= 0)
+                        throw ex; // endpoint not reachable at all - the ASK queries would fail as well
+                    LOGGER.warn("Batched query was rejected by the endpoint ({}) - fall back to one ASK query per pattern.", ex.getMessage());
+                    rejected.addAll(batch);
+                }
+            });
+        }
+        runAll(tasks);
+        if(!rejected.isEmpty())
+            checkConstructsWithAsk(rejected);
+    }
+    
+    /**
+     * Checks the given constructs with one SELECT query.
+     * @param constructs the constructs to check
+     */
+    protected void checkConstructsBatched(Collection<Construct> constructs) {
+        Query query = createBatchQuery(constructs);
+        String cached = getCached(query);
+        if(cached != null){
+            for(String name : cached.split(" ")){
+                if(!name.isEmpty())
+                    addConstruct(Construct.valueOf(name));
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> names = execute(query, NO_DEADLINE, SparqlDlExpressivityChecker::selectConstructNames);
+        recordBatch(constructs, names, System.nanoTime() - start);
+        for(String name : names){
+            addConstruct(Construct.valueOf(name));
+        }
+        putCached(query, String.join(" ", names));
+    }
+    
+    /**
+     * Records the answer of a batched query in the statistics (if set), thus the patterns within the batched queries
+     * can be ordered. The answer only tells which constructs matched, not which of their patterns: each pattern counts as hit
+     * if one of its constructs in the batch was found, and the latency of the query is split evenly between the patterns.
+     * @param constructs the constructs of the batch
+     * @param names the names of the constructs which were found
+     * @param nanos latency of the batched query
+     */
+    void recordBatch(Collection<Construct> constructs, Collection<String> names, long nanos){
+        if(this.statistics == null)
+            return;
+        Map<String, Set<Construct>> patterns = getPatternsFor(constructs);
+        if(patterns.isEmpty())
+            return;
+        long share = nanos / patterns.size();
+        for(Map.Entry<String, Set<Construct>> entry : patterns.entrySet()){
+            boolean hit = false;
+            for(Construct c : entry.getValue()){
+                if(constructs.contains(c) && names.contains(c.name()))
+                    hit = true;
+            }
+            this.statistics.record(entry.getKey(), hit, share);
+        }
+    }
+    
+    static List<String> selectConstructNames(QueryExecution qe){
+        List<String> names = new ArrayList<>();
+        ResultSet results = qe.execSelect();
+        while(results.hasNext()){
+            names.add(results.next().getLiteral("construct").getString());
+        }
+        return names;
+    }
+    
+    /**
+     * Creates one SELECT query which contains all patterns of the given constructs.
+     * Each construct is a LIMIT 1 subquery (union of its patterns) which binds the name of the construct to ?construct,
+     * and the subqueries are combined by UNION. Thus each answer is one construct which is present.
+     * Constructs without any pattern are skipped.
+     * The query is assembled from the parsed patterns of the catalog, thus nothing is parsed.
+     * @param constructs the constructs to check
+     * @return the query
+     */
+    protected Query createBatchQuery(Collection<Construct> constructs) {
+        Var constructVar = Var.alloc("construct");
+        ElementUnion union = new ElementUnion();
+        for(Construct c : constructs){
+            List<String> patterns = this.constructToSparqlQuery.get(c);
+            if(patterns.isEmpty())
+                continue;
+            ElementUnion constructUnion = new ElementUnion();
+            //endpoints usually evaluate the union in order, thus the cheapest pattern comes first
+            for(String pattern : this.statistics == null ? patterns : this.statistics.order(patterns)){
+                constructUnion.addElement(this.catalog.getElement(pattern));
+            }
+            ElementGroup group = new ElementGroup();
+            group.addElement(constructUnion);
+            group.addElement(new ElementBind(constructVar, NodeValue.makeString(c.name())));
+            
+            Query subQuery = new Query();
+            subQuery.setQuerySelectType();
+            subQuery.addResultVar(constructVar);
+            subQuery.setQueryPattern(group);
+            subQuery.setLimit(1);
+            union.addElement(new ElementSubQuery(subQuery));
+        }
+        Query query = new Query();
+        query.setQuerySelectType();
+        query.setPrefixMapping(this.catalog.getPrefixMapping());
+        query.setDistinct(true);
+        query.addResultVar(constructVar);
+        query.setQueryPattern(union);
+        if(this.graph != null && this.graph.length() > 0)
+            query.addGraphURI(this.graph);
+        return query;
+    }
+    
+    /**
+     * Checks the given constructs with one ASK query per distinct pattern.
+     * Patterns whose constructs are all found already are skipped.
+     * This is the fallback for endpoints which reject the batched queries.
+     * If more than one concurrent query is allowed, the queries are sent in parallel.
+     * @param constructs the constructs to check
+     */
+    protected void checkConstructsWithAsk(Collection<Construct> constructs) {
+        if(this.maxConcurrentQueries > 1){
+            checkConstructsWithAskConcurrently(constructs);
+            return;
+        }
+        for(Map.Entry<String, Set<Construct>> entry : getPatternsFor(constructs).entrySet()){
+            if(isFound(entry.getValue())){
+                skipPattern(entry.getKey(), entry.getValue());
+                continue;
+            }
+            LOGGER.info("Check for constructs {} with pattern {}", entry.getValue(), entry.getKey());
+            Query query = this.catalog.createAskQuery(entry.getKey(), this.graph);
+            String cached = getCached(query);
+            boolean result;
+            if(cached != null){
+                result = Boolean.parseBoolean(cached);
+            }else{
+                long start = System.nanoTime();
+                result = execute(query, NO_DEADLINE, QueryExecution::execAsk);
+                recordPattern(entry.getKey(), entry.getValue(), result, System.nanoTime() - start);
+                putCached(query, Boolean.toString(result));
+            }
+            if(result){
+                for(Construct c : entry.getValue()){
+                    addConstruct(c);
                 }
             }
         }
-    }    
+    }
+    
+    /**
+     * Sends the ASK queries of all distinct patterns to a pool of {@link #getMaxConcurrentQueries()} threads.
+     * As soon as all constructs of a pattern are found, its query is skipped if it is still pending
+     * and aborted if it is already running.
+     * @param constructs the constructs to check
+     */
+    protected void checkConstructsWithAskConcurrently(Collection<Construct> constructs) {
+        ExecutorService executor = Executors.newFixedThreadPool(this.maxConcurrentQueries);
+        Map<QueryExecution, Set<Construct>> running = new ConcurrentHashMap<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(Map.Entry<String, Set<Construct>> entry : getPatternsFor(constructs).entrySet()){
+                futures.add(executor.submit(() -> ask(entry.getKey(), entry.getValue(), running)));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void ask(String pattern, Set<Construct> constructs, Map<QueryExecution, Set<Construct>> running){
+        if(isFound(constructs)){
+            skipPattern(pattern, constructs);
+            return;
+        }
+        Query query = this.catalog.createAskQuery(pattern, this.graph);
+        String cached = getCached(query);
+        if(cached != null){
+            if(Boolean.parseBoolean(cached)){
+                for(Construct c : constructs){
+                    addConstruct(c);
+                }
+            }
+            return;
+        }
+        boolean result;
+        long start = System.nanoTime();
+        try {
+            result = execute(query, NO_DEADLINE, qe -> {
+                running.put(qe, constructs);
+                try {
+                    return qe.execAsk();
+                } finally {
+                    running.remove(qe);
+                }
+            }, () -> isFound(constructs));
+        } catch (RuntimeException ex) {
+            if(isFound(constructs))
+                return; // aborted because the constructs were proven by another pattern
+            throw ex;
+        }
+        recordPattern(pattern, constructs, result, System.nanoTime() - start);
+        putCached(query, Boolean.toString(result));
+        if(result){
+            LOGGER.info("Check for constructs {} - True", constructs);
+            for(Construct c : constructs){
+                addConstruct(c);
+            }
+            for(Map.Entry<QueryExecution, Set<Construct>> other : running.entrySet()){
+                if(isFound(other.getValue()))
+                    other.getKey().abort();
+            }
+        }
+    }
+    
+    /**
+     * Runs the probe query and concatenates all values of the result.
+     * @return the probe result which identifies the state of the dataset
+     */
+    protected String probe(){
+        Query query = QueryFactory.create(this.cacheProbe);
+        QueryCatalog.addGraph(query, this.graph);
+        return execute(query, NO_DEADLINE, qe -> {
+            StringBuilder sb = new StringBuilder();
+            ResultSet results = qe.execSelect();
+            while(results.hasNext()){
+                QuerySolution solution = results.next();
+                for(String var : results.getResultVars()){
+                    sb.append(solution.get(var)).append(' ');
+                }
+            }
+            return sb.toString().trim();
+        });
+    }
+    
+    /**
+     * Sends a query to the endpoint with the query timeout and retries transient failures
+     * (endpoint not reachable, timeouts, 429 and 502-504) with an adaptive exponential backoff.
+     * @param <T> type of the result
+     * @param query the query
+     * @param deadlineNanos no retry is started after this point of {@link System#nanoTime()} and the timeout is
+     *   shortened to the remaining time ({@link #NO_DEADLINE} for none)
+     * @param action runs the query execution
+     * @return the result of the action
+     */
+    protected <T> T execute(Query query, long deadlineNanos, Function<QueryExecution, T> action){
+        return execute(query, deadlineNanos, action, () -> false);
+    }
+    
+    /**
+     * Like {@link #execute(Query, long, Function)}, but a failed query is not retried if the result is no longer needed,
+     * e.g. because its constructs were proven by another pattern. Such a query was usually aborted on purpose and its
+     * failure is not transient. This does not rely on the abort being noticed by the query execution
+     * (a blocking <code>execAsk</code> of Jena is not stopped by {@link QueryExecution#abort()}).
+     * @param <T> type of the result
+     * @param query the query
+     * @param deadlineNanos no retry is started after this point of {@link System#nanoTime()}
+     * @param action runs the query execution
+     * @param cancelled returns true if the result is no longer needed - checked before each retry
+     * @return the result of the action
+     */
+    protected <T> T execute(Query query, long deadlineNanos, Function<QueryExecution, T> action, BooleanSupplier cancelled){
+        for(int attempt = 0; ; attempt++){
+            long start = System.nanoTime();
+            LongAdder bytes = new LongAdder();
+            try (QueryExecution qe = createQueryExecution(query, bytes)){
+                long timeout = getTimeoutMillis(deadlineNanos);
+                if(timeout > 0)
+                    qe.setTimeout(timeout, timeout);
+                T result = action.apply(qe);
+                fireQueryExecuted(System.nanoTime() - start, bytes.sum(), true);
+                this.backoffMillis.updateAndGet(b -> b < 0 ? b : Math.max(this.initialBackoffMillis, b / 2));
+                return result;
+            } catch (RuntimeException ex) {
+                fireQueryExecuted(System.nanoTime() - start, bytes.sum(), false);
+                if(attempt >= this.maxRetries || cancelled.getAsBoolean() || Thread.currentThread().isInterrupted() || !isTransient(ex))
+                    throw ex;
+                long backoff = this.backoffMillis.updateAndGet(b -> b < 0 ? this.initialBackoffMillis : Math.min(MAX_BACKOFF_MILLIS, b * 2));
+                long sleep = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                if(deadlineNanos != NO_DEADLINE && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sleep) - deadlineNanos >= 0)
+                    throw ex;
+                LOGGER.warn("Query failed ({}) - retry in {} ms", ex.getMessage(), sleep);
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+                if(cancelled.getAsBoolean())
+                    throw ex;
+            }
+        }
+    }
+    
+    private QueryExecution createQueryExecution(Query query, LongAdder bytes){
+        if(this.listeners.isEmpty())
+            return QueryExecutionFactory.sparqlService(this.endoint, query);
+        //only with listeners the responses are counted, otherwise the default client of Jena is used
+        HttpContext context = new BasicHttpContext();
+        context.setAttribute(BYTES_RECEIVED, bytes);
+        return QueryExecutionFactory.sparqlService(this.endoint, query, CountingClientHolder.CLIENT, context);
+    }
+    
+    private void fireQueryExecuted(long nanos, long bytes, boolean success){
+        for(ExpressivityCheckListener l : this.listeners){
+            l.queryExecuted(this.endoint, nanos, bytes, success);
+        }
+    }
+    
+    private static final String BYTES_RECEIVED = SparqlDlExpressivityChecker.class.getName() + ".bytesReceived";
+    
+    private static class CountingClientHolder {
+        static final HttpClient CLIENT = HttpOp.createPoolingHttpClientBuilder()
+                .addInterceptorLast((HttpResponseInterceptor) (response, context) -> {
+                    Object bytes = context.getAttribute(BYTES_RECEIVED);
+                    if(bytes instanceof LongAdder && response.getEntity() != null)
+                        response.setEntity(new CountingEntity(response.getEntity(), (LongAdder) bytes));
+                })
+                .build();
+    }
+    
+    private static class CountingEntity extends HttpEntityWrapper {
+        private final LongAdder bytes;
+
+        CountingEntity(HttpEntity entity, LongAdder bytes) {
+            super(entity);
+            this.bytes = bytes;
+        }
 
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if(b >= 0)
+                        bytes.increment();
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    int n = super.read(buffer, off, len);
+                    if(n > 0)
+                        bytes.add(n);
+                    return n;
+                }
+            };
+        }
+    }
+    
+    private long getTimeoutMillis(long deadlineNanos){
+        long timeout = this.queryTimeout == null ? 0 : this.queryTimeout.toMillis();
+        if(deadlineNanos != NO_DEADLINE){
+            long remaining = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+            timeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+        }
+        return timeout;
+    }
+    
+    /**
+     * @param ex the exception of a query
+     * @return true if sending the same query again might succeed
+     */
+    protected boolean isTransient(RuntimeException ex){
+        if(ex instanceof QueryExceptionHTTP){
+            int code = ((QueryExceptionHTTP) ex).getResponseCode();
+            return code <= 0 || code == 408 || code == 429 || code == 502 || code == 503 || code == 504;
+        }
+        return false;
+    }
+    
+    /**
+     * Checks the endpoint asynchronously within the given time. All queries which are still running at the deadline
+     * are aborted, and the result marks each construct as proven, disproven or unknown.
+     * The query timeout and retries apply to each single query.
+     * If the result is complete, the getters of this checker (e.g. {@link #expressibleInLanguages()}) use it
+     * without sending the queries again. Cancelling the future aborts all running queries.
+     * @param deadline maximum time for the whole check
+     * @return future of the (possibly partial) result
+     */
+    public CompletableFuture<PartialExpressivityResult> checkAsync(Duration deadline){
+        return new DeadlineBoundedCheck(this, System.nanoTime() + deadline.toNanos()).start();
+    }
+    
+    /**
+     * Computes the expressivity of every named graph of the endpoint with one query per distinct pattern
+     * (<code>SELECT DISTINCT ?g WHERE { GRAPH ?g { pattern } }</code>) instead of one check per graph.
+     * The graph of this checker is not used. The queries are sent in parallel if more than one concurrent query is allowed.
+     * @return for each named graph (including graphs without any construct) its expressivity, ordered by the graph name
+     */
+    public Map<String, NamedGraphExpressivity> sweepNamedGraphs(){
+        if(this.cache != null && this.cacheProbe != null)
+            this.cache.validate(this.endoint, this.graph, probe());
+        Map<String, Set<Construct>> graphToConstructs = new ConcurrentHashMap<>();
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            for(String g : selectGraphs(new ElementGroup())){
+                graphToConstructs.computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet());
+            }
+        });
+        for(Map.Entry<String, Set<Construct>> entry : this.patternToConstructs.entrySet()){
+            tasks.add(() -> {
+                LOGGER.info("Sweep named graphs for constructs {} with pattern {}", entry.getValue(), entry.getKey());
+                long start = System.nanoTime();
+                List<String> graphs = selectGraphs(this.catalog.getElement(entry.getKey()));
+                for(ExpressivityCheckListener l : this.listeners){
+                    l.patternChecked(entry.getKey(), entry.getValue(), !graphs.isEmpty(), System.nanoTime() - start);
+                }
+                for(String g : graphs){
+                    graphToConstructs.computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet()).addAll(entry.getValue());
+                }
+            });
+        }
+        runAll(tasks);
+        Map<String, NamedGraphExpressivity> result = new TreeMap<>();
+        graphToConstructs.forEach((g, constructs) -> result.put(g, new NamedGraphExpressivity(g, constructs)));
+        return result;
+    }
+    
+    private List<String> selectGraphs(Element pattern){
+        Var graphVar = Var.alloc("g");
+        Query query = new Query();
+        query.setQuerySelectType();
+        query.setPrefixMapping(this.catalog.getPrefixMapping());
+        query.setDistinct(true);
+        query.addResultVar(graphVar);
+        query.setQueryPattern(new ElementNamedGraph(graphVar, pattern));
+        String cached = getCached(query);
+        if(cached != null)
+            return cached.isEmpty() ? new ArrayList<>() : Arrays.asList(cached.split(" "));
+        List<String> graphs = execute(query, NO_DEADLINE, qe -> {
+            List<String> names = new ArrayList<>();
+            ResultSet results = qe.execSelect();
+            while(results.hasNext()){
+                RDFNode g = results.next().get(graphVar.getVarName());
+                if(g != null && g.isURIResource())
+                    names.add(g.asResource().getURI());
+            }
+            return names;
+        });
+        //a cache entry is one line, IRIs contain no spaces
+        putCached(query, String.join(" ", graphs));
+        return graphs;
+    }
+    
+    String getCached(Query query){
+        if(this.cache == null)
+            return null;
+        String cached = this.cache.get(this.endoint, this.graph, query.serialize());
+        if(cached != null)
+            LOGGER.debug("Use cached result {}", cached);
+        return cached;
+    }
+    
+    void putCached(Query query, String result){
+        if(this.cache != null)
+            this.cache.put(this.endoint, this.graph, query.serialize(), result);
+    }
+    
+    private void runAll(List<Runnable> tasks){
+        if(this.maxConcurrentQueries <= 1 || tasks.size() <= 1){
+            tasks.forEach(Runnable::run);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.maxConcurrentQueries, tasks.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(Runnable task : tasks){
+                futures.add(executor.submit(task));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static void awaitAll(List<Future<?>> futures){
+        for(Future<?> future : futures){
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the endpoint.", ex);
+            } catch (ExecutionException ex) {
+                if(ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException)ex.getCause();
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+    }
+    
     public String getEndoint() {
         return endoint;
     }
@@ -52,6 +621,85 @@ public class SparqlDlExpressivityChecker extends JenaDLExpressivityChecker{
     public String getGraph() {
         return graph;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize number of constructs combined in one SELECT query. A value of zero or less disables batching and sends one ASK query per pattern.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    /**
+     * @param maxConcurrentQueries maximum number of queries which are sent to the endpoint at the same time. One (the default) runs all queries sequentially on the calling thread.
+     */
+    public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+        this.maxConcurrentQueries = maxConcurrentQueries;
+    }
+    
+    public Duration getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * @param queryTimeout timeout for each single query (read and connect timeout of the HTTP request). Null (the default) waits forever.
+     */
+    public void setQueryTimeout(Duration queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param maxRetries how often a query is sent again after a transient failure, default 2
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * @param initialBackoffMillis waiting time before the first retry, default 500 ms
+     */
+    public void setInitialBackoffMillis(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public QueryResultCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @param cache persistent cache for the query results. A rerun with a warm cache does not contact the endpoint
+     *   (except for the probe query if one is set). Null (the default) disables caching.
+     */
+    public void setCache(QueryResultCache cache) {
+        this.cache = cache;
+    }
+
+    public String getCacheProbe() {
+        return cacheProbe;
+    }
+
+    /**
+     * @param cacheProbe SELECT query which is sent before each check when a cache is used (e.g. {@link #MODIFIED_PROBE},
+     *   a query for a version number or {@link #TRIPLE_COUNT_PROBE}). If its result differs from the last run, the cached results of this endpoint and graph are dropped.
+     */
+    public void setCacheProbe(String cacheProbe) {
+        this.cacheProbe = cacheProbe;
+    }
     
     private String trimIfNotNull(String text){
         if(text == null)
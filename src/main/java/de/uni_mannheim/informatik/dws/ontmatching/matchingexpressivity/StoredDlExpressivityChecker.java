@@ -0,0 +1,76 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.function.Function;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks up the result of an ontology file in an {@link ExpressivityResultStore} before anything is parsed.
+ * Only if the content (or the query catalog) changed, the file is checked by the given checker and its result is stored.
+ * @author shertlin
+ */
+public class StoredDlExpressivityChecker extends JenaDLExpressivityChecker{
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoredDlExpressivityChecker.class);
+
+    protected Path file;
+    protected ExpressivityResultStore store;
+    protected Function<Path, ? extends JenaDLExpressivityChecker> checker;
+    protected boolean stored;
+
+    /**
+     * @param file the ontology file
+     * @param store the result store - it has to be created for the catalog of the checker
+     * @param checker creates the checker which is used if there is no stored result, e.g. <code>StreamDlExpressivityChecker::new</code>
+     */
+    public StoredDlExpressivityChecker(Path file, ExpressivityResultStore store, Function<Path, ? extends JenaDLExpressivityChecker> checker) {
+        this.file = file;
+        this.store = store;
+        this.checker = checker;
+    }
+    /**
+     * @param file the ontology file - checked with a {@link StreamDlExpressivityChecker} if there is no stored result
+     * @param store the result store
+     */
+    public StoredDlExpressivityChecker(Path file, ExpressivityResultStore store) {
+        this(file, store, StreamDlExpressivityChecker::new);
+    }
+
+    @Override
+    protected void checkConstructs() {
+        String contentHash;
+        try {
+            contentHash = ExpressivityResultStore.contentHash(this.file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + this.file, ex);
+        }
+        ExpressivityResultStore.StoredResult result = this.store.get(contentHash);
+        this.stored = result != null;
+        if(this.stored){
+            LOGGER.debug("Use stored result of {}", this.file);
+            for(Construct c : result.getConstructs()){
+                addConstruct(c);
+            }
+            return;
+        }
+        JenaDLExpressivityChecker delegate = this.checker.apply(this.file);
+        for(Construct c : delegate.getConstructs()){
+            addConstruct(c);
+        }
+        this.store.put(contentHash, delegate);
+    }
+
+    /**
+     * @return true if the result was taken from the store (only valid after the check)
+     */
+    public boolean isStored() {
+        return stored;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
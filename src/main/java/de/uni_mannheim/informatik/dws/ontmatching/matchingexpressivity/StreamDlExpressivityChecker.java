@@ -0,0 +1,81 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks a local RDF file (or any source RIOT can read) in one streaming pass
+ * with a {@link StreamingConstructDetector}. No Model is created, thus the file can be larger than the heap.
+ * Local files and streams are read with an {@link OntologySource}, thus they can be compressed with gzip, bzip2 or xz.
+ * @author shertlin
+ */
+public class StreamDlExpressivityChecker extends JenaDLExpressivityChecker{
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamDlExpressivityChecker.class);
+
+    protected String source;
+    protected Lang language;
+    protected Path file;
+    protected OntologySource input;
+
+    /**
+     * @param source file name or URL of the ontology
+     * @param language the serialization - if null, it is guessed by RIOT (e.g. from the file extension)
+     */
+    public StreamDlExpressivityChecker(String source, Lang language) {
+        this.source = source;
+        this.language = language;
+    }
+    public StreamDlExpressivityChecker(String source) {
+        this(source, null);
+    }
+    /**
+     * @param file the ontology file, possibly compressed
+     * @param language the serialization - if null, it is detected from the file name or content
+     */
+    public StreamDlExpressivityChecker(Path file, Lang language) {
+        this(file.toString(), language);
+        this.file = file;
+    }
+    public StreamDlExpressivityChecker(Path file) {
+        this(file, null);
+    }
+    /**
+     * @param input the ontology - it can be checked only once and is closed afterwards
+     */
+    public StreamDlExpressivityChecker(OntologySource input) {
+        this(input.getName(), input.getLanguage());
+        this.input = input;
+    }
+
+    @Override
+    protected void checkConstructs() {
+        LOGGER.info("Stream {} to check for constructs", this.source);
+        StreamingConstructDetector detector = new StreamingConstructDetector();
+        if(this.input == null && this.file == null){
+            RDFDataMgr.parse(detector, this.source, this.language);
+        }else{
+            try(OntologySource in = this.input == null ? OntologySource.open(this.file, this.language) : this.input){
+                in.parse(detector);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        for(Construct c : detector.getConstructs()){
+            addConstruct(c);
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Lang getLanguage() {
+        return language;
+    }
+}
@@ -0,0 +1,344 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.OWL2;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.semanticweb.owlapi.util.Construct;
+
+/**
+ * StreamRDF sink which detects all constructs of {@link JenaDLExpressivityChecker#createBuiltinConstructToSparqlQuery()}
+ * in a single pass over the triples, without building a Model.
+ * Single triple patterns are decided immediately. For the patterns which join multiple triples
+ * (e.g. qualified cardinality + owl:onClass or owl:oneOf lists) only the join candidates are remembered
+ * and the joins are resolved in {@link #finish()}.
+ * The state therefore grows with the number of OWL join candidates (restrictions, list cells) and not with the number of triples.
+ * Join candidates are dropped as soon as all constructs depending on them are found.
+ * <p>
+ * Detectors of different parts of the same file can be combined with {@link #merge(StreamingConstructDetector)}.
+ * @author shertlin
+ */
+public class StreamingConstructDetector extends StreamRDFBase {
+
+    private static final Node TYPE = RDF.type.asNode();
+    private static final Node FIRST = RDF.first.asNode();
+    private static final Node THING = OWL2.Thing.asNode();
+    private static final Node LITERAL = RDFS.Literal.asNode();
+
+    private final Set<Construct> found = EnumSet.noneOf(Construct.class);
+
+    //?x owl:oneOf ?y. ?y rdf:first ?z.
+    private final Set<Node> oneOfLists = new HashSet<>();
+    private final Set<Node> literalListCells = new HashSet<>();
+    private final Map<Node, Set<Node>> resourceListCells = new HashMap<>();
+
+    //?x owl:onDatatype ?y. ?x owl:withRestrictions ?z.
+    private final Set<Node> onDatatype = new HashSet<>();
+    private final Set<Node> withRestrictions = new HashSet<>();
+
+    //?x a owl:AllDifferent / AllDisjointClasses / AllDisjointProperties. ?x owl:members ?y.
+    private final Set<Node> allDifferent = new HashSet<>();
+    private final Set<Node> allDisjointClasses = new HashSet<>();
+    private final Set<Node> allDisjointProperties = new HashSet<>();
+    private final Map<Node, Set<Node>> members = new HashMap<>();
+
+    //?x owl:minQualifiedCardinality|qualifiedCardinality|maxQualifiedCardinality ?y; owl:onClass|onDataRange ?z.
+    private final Set<Node> qualifiedCardinality = new HashSet<>();
+    private final Set<Node> onClassThing = new HashSet<>();
+    private final Set<Node> onClassOther = new HashSet<>();
+    private final Set<Node> onDataRangeLiteral = new HashSet<>();
+    private final Set<Node> onDataRangeOther = new HashSet<>();
+
+    //?x owl:propertyDisjointWith ?y. ?x a owl:ObjectProperty. ?y a owl:ObjectProperty.
+    private final Set<Node> objectProperties = new HashSet<>();
+    private final Map<Node, Set<Node>> propertyDisjointWith = new HashMap<>();
+
+    @Override
+    public void triple(Triple t) {
+        int before = found.size();
+        checkTriple(t);
+        if(found.size() != before){
+            releaseJoinCandidates();
+        }
+    }
+
+    private void checkTriple(Triple t){
+        Node s = t.getSubject();
+        Node p = t.getPredicate();
+        Node o = t.getObject();
+
+        if(p.equals(TYPE)){
+            checkType(s, o);
+        }else if(p.equals(FIRST)){
+            if(o.isLiteral()){
+                if(missing(Construct.D))
+                    literalListCells.add(s);
+            }else if((o.isURI() && missing(Construct.CONCEPT_UNION, Construct.NOMINALS)) || missing(Construct.ROLE_COMPLEX)){
+                addToMap(resourceListCells, s, o);
+            }
+        }else if(p.equals(OWL2.inverseOf.asNode())){
+            found(Construct.ROLE_INVERSE);
+        }else if(p.equals(OWL2.datatypeComplementOf.asNode())){
+            found(Construct.D);
+        }else if(p.equals(OWL2.oneOf.asNode())){
+            if(missing(Construct.D, Construct.CONCEPT_UNION, Construct.NOMINALS))
+                oneOfLists.add(o);
+        }else if(p.equals(OWL2.onDatatype.asNode())){
+            if(missing(Construct.D))
+                onDatatype.add(s);
+        }else if(p.equals(OWL2.withRestrictions.asNode())){
+            if(missing(Construct.D))
+                withRestrictions.add(s);
+        }else if(p.equals(OWL2.hasValue.asNode())){
+            if(o.isLiteral()){
+                found(Construct.D);
+            }else if(o.isURI()){
+                found(Construct.FULL_EXISTENTIAL);
+                found(Construct.NOMINALS);
+            }
+        }else if(p.equals(OWL2.intersectionOf.asNode())){
+            found(Construct.CONCEPT_INTERSECTION);
+        }else if(p.equals(OWL2.unionOf.asNode())){
+            found(Construct.CONCEPT_UNION);
+        }else if(p.equals(OWL2.differentFrom.asNode())){
+            found(Construct.CONCEPT_UNION);
+            found(Construct.CONCEPT_COMPLEX_NEGATION);
+            found(Construct.NOMINALS);
+        }else if(p.equals(OWL2.disjointUnionOf.asNode())){
+            found(Construct.CONCEPT_UNION);
+            found(Construct.CONCEPT_COMPLEX_NEGATION);
+        }else if(p.equals(OWL2.members.asNode())){
+            if(missing(Construct.CONCEPT_UNION, Construct.CONCEPT_COMPLEX_NEGATION, Construct.ROLE_COMPLEX))
+                addToMap(members, s, o);
+        }else if(p.equals(OWL2.complementOf.asNode()) || p.equals(OWL2.disjointWith.asNode())){
+            found(Construct.CONCEPT_COMPLEX_NEGATION);
+        }else if(p.equals(OWL2.someValuesFrom.asNode())){
+            found(o.equals(THING) ? Construct.LIMITED_EXISTENTIAL : Construct.FULL_EXISTENTIAL);
+        }else if(p.equals(OWL2.allValuesFrom.asNode())){
+            found(Construct.UNIVERSAL_RESTRICTION);
+        }else if(p.equals(OWL2.sameAs.asNode())){
+            found(Construct.NOMINALS);
+        }else if(p.equals(OWL2.minCardinality.asNode()) || p.equals(OWL2.cardinality.asNode()) || p.equals(OWL2.maxCardinality.asNode())){
+            found(Construct.N);
+        }else if(p.equals(OWL2.minQualifiedCardinality.asNode()) || p.equals(OWL2.qualifiedCardinality.asNode()) || p.equals(OWL2.maxQualifiedCardinality.asNode())){
+            if(missing(Construct.Q, Construct.N))
+                qualifiedCardinality.add(s);
+        }else if(p.equals(OWL2.onClass.asNode())){
+            if(missing(Construct.Q, Construct.N))
+                (o.equals(THING) ? onClassThing : onClassOther).add(s);
+        }else if(p.equals(OWL2.onDataRange.asNode())){
+            if(missing(Construct.Q, Construct.N))
+                (o.equals(LITERAL) ? onDataRangeLiteral : onDataRangeOther).add(s);
+        }else if(p.equals(OWL2.hasSelf.asNode())){
+            found(Construct.ROLE_COMPLEX);
+        }else if(p.equals(OWL2.propertyDisjointWith.asNode())){
+            if(missing(Construct.ROLE_COMPLEX))
+                addToMap(propertyDisjointWith, s, o);
+        }else if(p.equals(OWL2.propertyChainAxiom.asNode())){
+            found(Construct.ROLE_REFLEXIVITY_CHAINS);
+        }else if(p.equals(RDFS.domain.asNode()) || p.equals(RDFS.range.asNode())){
+            found(Construct.ROLE_DOMAIN_RANGE);
+        }else if(p.equals(OWL2.equivalentProperty.asNode()) || p.equals(RDFS.subPropertyOf.asNode())){
+            found(Construct.ROLE_HIERARCHY);
+        }
+    }
+
+    private void checkType(Node s, Node type){
+        if(type.equals(OWL2.SymmetricProperty.asNode())){
+            found(Construct.ROLE_INVERSE);
+        }else if(type.equals(OWL2.InverseFunctionalProperty.asNode())){
+            found(Construct.ROLE_INVERSE);
+            found(Construct.F);
+        }else if(type.equals(OWL2.DatatypeProperty.asNode())){
+            found(Construct.D);
+        }else if(type.equals(OWL2.AllDifferent.asNode())){
+            found(Construct.NOMINALS);
+            if(missing(Construct.CONCEPT_UNION, Construct.CONCEPT_COMPLEX_NEGATION))
+                allDifferent.add(s);
+        }else if(type.equals(OWL2.AllDisjointClasses.asNode())){
+            if(missing(Construct.CONCEPT_COMPLEX_NEGATION))
+                allDisjointClasses.add(s);
+        }else if(type.equals(OWL2.AllDisjointProperties.asNode())){
+            if(missing(Construct.ROLE_COMPLEX))
+                allDisjointProperties.add(s);
+        }else if(type.equals(OWL2.ObjectProperty.asNode())){
+            if(missing(Construct.ROLE_COMPLEX))
+                objectProperties.add(s);
+        }else if(type.equals(OWL2.AsymmetricProperty.asNode()) || type.equals(OWL2.IrreflexiveProperty.asNode())){
+            found(Construct.ROLE_COMPLEX);
+        }else if(type.equals(OWL2.ReflexiveProperty.asNode())){
+            found(Construct.ROLE_REFLEXIVITY_CHAINS);
+        }else if(type.equals(OWL2.FunctionalProperty.asNode())){
+            found(Construct.F);
+        }else if(type.equals(OWL2.TransitiveProperty.asNode())){
+            found(Construct.ROLE_TRANSITIVE);
+        }
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void finish() {
+        resolveJoins();
+    }
+
+    /**
+     * Evaluates the multi triple patterns on the join candidates seen so far.
+     */
+    protected void resolveJoins(){
+        for(Node list : oneOfLists){
+            if(literalListCells.contains(list)){
+                found(Construct.D);
+            }
+            for(Node element : resourceListCells.getOrDefault(list, Collections.emptySet())){
+                if(element.isURI()){
+                    found(Construct.CONCEPT_UNION);
+                    found(Construct.NOMINALS);
+                }
+            }
+        }
+        if(intersects(onDatatype, withRestrictions)){
+            found(Construct.D);
+        }
+        if(intersects(allDifferent, members.keySet())){
+            found(Construct.CONCEPT_UNION);
+            found(Construct.CONCEPT_COMPLEX_NEGATION);
+        }
+        if(intersects(allDisjointClasses, members.keySet())){
+            found(Construct.CONCEPT_COMPLEX_NEGATION);
+        }
+        if(intersects(qualifiedCardinality, onClassOther) || intersects(qualifiedCardinality, onDataRangeOther)){
+            found(Construct.Q);
+        }
+        if(intersects(qualifiedCardinality, onClassThing) || intersects(qualifiedCardinality, onDataRangeLiteral)){
+            found(Construct.N);
+        }
+        for(Map.Entry<Node, Set<Node>> disjoint : propertyDisjointWith.entrySet()){
+            if(objectProperties.contains(disjoint.getKey()) && intersects(disjoint.getValue(), objectProperties)){
+                found(Construct.ROLE_COMPLEX);
+            }
+        }
+        for(Node x : allDisjointProperties){
+            for(Node y : members.getOrDefault(x, Collections.emptySet())){
+                if(intersects(resourceListCells.getOrDefault(y, Collections.emptySet()), objectProperties)){
+                    found(Construct.ROLE_COMPLEX);
+                }
+            }
+        }
+        releaseJoinCandidates();
+    }
+
+    /**
+     * Adds the constructs and join candidates of a detector which has seen another part of the same document.
+     * Joins across the parts (e.g. a restriction whose triples are in different parts) are resolved
+     * by the next call of {@link #finish()}. Blank nodes of both parts must have been created with the same labelling,
+     * e.g. <code>LabelToNode.createScopeByDocumentHash(uuid)</code> with one uuid for all parts.
+     * @param other the detector of another part - it is not modified
+     */
+    public void merge(StreamingConstructDetector other){
+        found.addAll(other.found);
+        oneOfLists.addAll(other.oneOfLists);
+        literalListCells.addAll(other.literalListCells);
+        mergeMap(resourceListCells, other.resourceListCells);
+        onDatatype.addAll(other.onDatatype);
+        withRestrictions.addAll(other.withRestrictions);
+        allDifferent.addAll(other.allDifferent);
+        allDisjointClasses.addAll(other.allDisjointClasses);
+        allDisjointProperties.addAll(other.allDisjointProperties);
+        mergeMap(members, other.members);
+        qualifiedCardinality.addAll(other.qualifiedCardinality);
+        onClassThing.addAll(other.onClassThing);
+        onClassOther.addAll(other.onClassOther);
+        onDataRangeLiteral.addAll(other.onDataRangeLiteral);
+        onDataRangeOther.addAll(other.onDataRangeOther);
+        objectProperties.addAll(other.objectProperties);
+        mergeMap(propertyDisjointWith, other.propertyDisjointWith);
+        releaseJoinCandidates();
+    }
+
+    /**
+     * @return the constructs found so far (without applying any merge rules)
+     */
+    public Set<Construct> getConstructs() {
+        return Collections.unmodifiableSet(found);
+    }
+
+    private boolean missing(Construct... constructs){
+        for(Construct c : constructs){
+            if(!found.contains(c))
+                return true;
+        }
+        return false;
+    }
+
+    private void found(Construct c){
+        found.add(c);
+    }
+
+    private void releaseJoinCandidates(){
+        if(!missing(Construct.D, Construct.CONCEPT_UNION, Construct.NOMINALS)){
+            oneOfLists.clear();
+        }
+        if(!missing(Construct.D)){
+            literalListCells.clear();
+            onDatatype.clear();
+            withRestrictions.clear();
+        }
+        if(!missing(Construct.CONCEPT_UNION, Construct.NOMINALS, Construct.ROLE_COMPLEX)){
+            resourceListCells.clear();
+        }
+        if(!missing(Construct.CONCEPT_UNION, Construct.CONCEPT_COMPLEX_NEGATION)){
+            allDifferent.clear();
+        }
+        if(!missing(Construct.CONCEPT_COMPLEX_NEGATION)){
+            allDisjointClasses.clear();
+        }
+        if(!missing(Construct.CONCEPT_UNION, Construct.CONCEPT_COMPLEX_NEGATION, Construct.ROLE_COMPLEX)){
+            members.clear();
+        }
+        if(!missing(Construct.Q, Construct.N)){
+            qualifiedCardinality.clear();
+            onClassThing.clear();
+            onClassOther.clear();
+            onDataRangeLiteral.clear();
+            onDataRangeOther.clear();
+        }
+        if(!missing(Construct.ROLE_COMPLEX)){
+            allDisjointProperties.clear();
+            objectProperties.clear();
+            propertyDisjointWith.clear();
+        }
+    }
+
+    private static void addToMap(Map<Node, Set<Node>> map, Node key, Node value){
+        map.computeIfAbsent(key, k -> new HashSet<>()).add(value);
+    }
+
+    private static void mergeMap(Map<Node, Set<Node>> map, Map<Node, Set<Node>> other){
+        for(Map.Entry<Node, Set<Node>> entry : other.entrySet()){
+            map.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+        }
+    }
+
+    private static boolean intersects(Set<Node> one, Set<Node> two){
+        Set<Node> smaller = one.size() < two.size() ? one : two;
+        Set<Node> larger = smaller == one ? two : one;
+        for(Node n : smaller){
+            if(larger.contains(n))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.Arrays;
+import java.util.Set;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
+import org.semanticweb.owlapi.util.Construct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks an ontology stored in a TDB2 database on disk. The patterns run inside a read transaction directly on the
+ * indexes of the database, thus the ontology can be much larger than the heap and has to be loaded only once.
+ * @author shertlin
+ */
+public class TdbDlExpressivityChecker extends ModelDlExpressivityChecker{
+    private static final Logger LOGGER = LoggerFactory.getLogger(TdbDlExpressivityChecker.class);
+
+    protected Dataset dataset;
+    protected String graph;
+
+    /**
+     * @param dataset a TDB2 (or any other transactional) dataset
+     * @param graph the named graph which should be checked - if null, the default graph is checked.
+     *   The union of all named graphs can be checked with <code>urn:x-arq:UnionGraph</code>.
+     */
+    public TdbDlExpressivityChecker(Dataset dataset, String graph) {
+        super(graph == null ? dataset.getDefaultModel() : dataset.getNamedModel(graph));
+        this.dataset = dataset;
+        this.graph = graph;
+        //TDB2 joins the basic graph patterns on node ids, without materializing the nodes of every match
+        this.nativeMatching = false;
+    }
+    /**
+     * @param directory the directory of the TDB2 database - it is created if it does not exist
+     * @param graph the named graph which should be checked - if null, the default graph is checked
+     */
+    public TdbDlExpressivityChecker(String directory, String graph) {
+        this(TDB2Factory.connectDataset(directory), graph);
+    }
+    public TdbDlExpressivityChecker(String directory) {
+        this(directory, null);
+    }
+
+    @Override
+    protected void checkConstructs() {
+        LOGGER.info("Check {} in a read transaction", this.graph == null ? "default graph" : this.graph);
+        Txn.executeRead(this.dataset, () -> super.checkConstructs());
+    }
+
+    /**
+     * Transactions belong to a thread, thus in parallel mode each worker runs its pattern in its own read transaction
+     * (in the calling thread the surrounding transaction is reused).
+     */
+    @Override
+    protected void checkPattern(String pattern, Set<Construct> constructs) {
+        Txn.executeRead(this.dataset, () -> super.checkPattern(pattern, constructs));
+    }
+
+    /**
+     * Bulk loads the files into the checked graph if it is empty (e.g. on first use of a new database).
+     * @param sources files or URLs of the ontology
+     * @return true if the files were loaded, false if the graph already contains triples
+     */
+    public boolean loadIfEmpty(String... sources){
+        boolean empty = Txn.calculateRead(this.dataset, () -> this.m.isEmpty());
+        if(!empty){
+            LOGGER.info("Graph is not empty - skip loading");
+            return false;
+        }
+        DataLoader loader = this.graph == null ?
+                LoaderFactory.createLoader(this.dataset.asDatasetGraph(), LoaderOps.outputToLog(LOGGER)) :
+                LoaderFactory.createLoader(this.dataset.asDatasetGraph(), NodeFactory.createURI(this.graph), LoaderOps.outputToLog(LOGGER));
+        LOGGER.info("Bulk load {}", Arrays.toString(sources));
+        loader.startBulk();
+        try {
+            loader.load(sources);
+            loader.finishBulk();
+        } catch (RuntimeException ex) {
+            loader.finishException(ex);
+            throw ex;
+        }
+        resetConstructs();
+        return true;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public String getGraph() {
+        return graph;
+    }
+}
@@ -0,0 +1,177 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpVisitorBase;
+import org.apache.jena.sparql.algebra.OpWalker;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpFilter;
+import org.apache.jena.sparql.algebra.op.OpPath;
+import org.apache.jena.sparql.algebra.op.OpQuadPattern;
+import org.apache.jena.sparql.algebra.op.OpTriple;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunction;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * The triples which can be matched by at least one pattern of a catalog: triples whose predicate occurs in a pattern,
+ * and rdf:type triples whose class occurs in a pattern (e.g. owl:TransitiveProperty).
+ * All other triples (most of the ABox and its literals) can be dropped while parsing - the patterns have exactly the same matches on the projection.
+ * <p>
+ * The projection is derived from the triple patterns of the catalog. If a pattern has a variable as predicate (or as class of rdf:type),
+ * all triples (or all rdf:type triples) are kept.
+ * @author shertlin
+ */
+public class VocabularyProjection implements Predicate<Triple> {
+
+    private final Set<Node> predicates = new HashSet<>();
+    private final Set<Node> types = new HashSet<>();
+    private boolean allTriples;
+    private boolean allTypes;
+
+    /**
+     * @param algebra the algebra expressions of all patterns
+     */
+    public VocabularyProjection(Collection<Op> algebra) {
+        OpVisitorBase visitor = new OpVisitorBase(){
+            @Override
+            public void visit(OpBGP op) {
+                for(Triple t : op.getPattern()){
+                    add(t);
+                }
+            }
+            @Override
+            public void visit(OpTriple op) {
+                add(op.getTriple());
+            }
+            @Override
+            public void visit(OpQuadPattern op) {
+                for(Quad q : op.getPattern()){
+                    add(q.asTriple());
+                }
+            }
+            @Override
+            public void visit(OpPath op) {
+                allTriples = true;
+            }
+            @Override
+            public void visit(OpFilter op) {
+                for(Expr expr : op.getExprs()){
+                    if(containsPattern(expr))
+                        allTriples = true;
+                }
+            }
+        };
+        for(Op op : algebra){
+            OpWalker.walk(op, visitor);
+        }
+    }
+
+    private void add(Triple t){
+        Node p = t.getPredicate();
+        if(!p.isConcrete()){
+            this.allTriples = true;
+        }else if(p.equals(RDF.type.asNode())){
+            if(t.getObject().isConcrete())
+                this.types.add(t.getObject());
+            else
+                this.allTypes = true;
+        }else{
+            this.predicates.add(p);
+        }
+    }
+
+    /**
+     * @return true if the expression contains EXISTS or NOT EXISTS, i.e. graph patterns which are not visited by the walker
+     */
+    private static boolean containsPattern(Expr expr){
+        if(expr instanceof ExprFunctionOp)
+            return true;
+        if(expr instanceof ExprFunction){
+            for(Expr arg : ((ExprFunction) expr).getArgs()){
+                if(containsPattern(arg))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param t a triple
+     * @return true if the triple can be matched by a pattern
+     */
+    @Override
+    public boolean test(Triple t) {
+        if(this.allTriples)
+            return true;
+        Node p = t.getPredicate();
+        if(p.equals(RDF.type.asNode()))
+            return this.allTypes || this.types.contains(t.getObject());
+        return this.predicates.contains(p);
+    }
+
+    /**
+     * @param destination receives only the triples (and quads) of the projection
+     * @return a stream which filters the triples while parsing
+     */
+    public StreamRDF filter(StreamRDF destination){
+        return new StreamRDFWrapper(destination){
+            @Override
+            public void triple(Triple triple) {
+                if(test(triple))
+                    super.triple(triple);
+            }
+            @Override
+            public void quad(Quad quad) {
+                if(test(quad.asTriple()))
+                    super.quad(quad);
+            }
+        };
+    }
+
+    /**
+     * Parses the source into a model which contains only the triples of the projection.
+     * @param source file or URL of the ontology (the serialization is detected from the name or content type)
+     * @return the projected model
+     */
+    public Model load(String source){
+        Model m = ModelFactory.createDefaultModel();
+        RDFParser.source(source).parse(filter(StreamRDFLib.graph(m.getGraph())));
+        return m;
+    }
+
+    /**
+     * Parses (and closes) the source into a model which contains only the triples of the projection.
+     * @param source the ontology
+     * @return the projected model
+     * @throws IOException if the source can not be read
+     */
+    public Model load(OntologySource source) throws IOException {
+        Model m = ModelFactory.createDefaultModel();
+        try(OntologySource s = source){
+            s.parse(filter(StreamRDFLib.graph(m.getGraph())));
+        }
+        return m;
+    }
+
+    /**
+     * @return true if the projection keeps all triples, e.g. because a pattern has a variable as predicate
+     */
+    public boolean isAllTriples() {
+        return allTriples;
+    }
+}
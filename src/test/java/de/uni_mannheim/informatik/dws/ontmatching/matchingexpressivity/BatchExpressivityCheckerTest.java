@@ -0,0 +1,115 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchExpressivityCheckerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void testResolveFiles() throws IOException {
+        Path a = write("a.ttl", prefixDefinition);
+        Path b = write("sub/b.ttl", prefixDefinition);
+        write("sub/readme.txt", "no ontology");
+        Path list = write("list.txt", a.toString() + "\n\n# comment\n" + b.toString() + "\n");
+
+        assertEquals(Arrays.asList(a, b), BatchExpressivityChecker.resolveFiles(Collections.singletonList(tempDir.toString())));
+        assertEquals(Arrays.asList(b), BatchExpressivityChecker.resolveFiles(Collections.singletonList(tempDir.toString() + "/sub/*.ttl")));
+        assertEquals(Arrays.asList(a, b), BatchExpressivityChecker.resolveFiles(Collections.singletonList("@" + list.toString())));
+    }
+
+    @Test
+    void testRowPerFile() throws IOException {
+        Path transitive = write("transitive.ttl", prefixDefinition + ":x a owl:TransitiveProperty.");
+        Path inverse = write("inverse.ttl", prefixDefinition + ":x owl:inverseOf :y.");
+        Path broken = write("broken.ttl", prefixDefinition + ":x a");
+
+        for(boolean loadModel : new boolean[]{false, true}){
+            BatchExpressivityChecker batch = new BatchExpressivityChecker();
+            batch.setThreads(2);
+            batch.setLoadModel(loadModel);
+            StringWriter out = new StringWriter();
+            batch.run(Arrays.asList(transitive, inverse, broken), out);
+            List<String> rows = Arrays.asList(out.toString().split("\n"));
+            assertEquals(3, rows.size());
+            assertTrue(rows.stream().anyMatch(r -> r.startsWith("{\"file\":" + quote(transitive) + ",\"constructs\":[\"ROLE_TRANSITIVE\"],\"dlName\":\"+\",\"languages\":[")), out.toString());
+            assertTrue(rows.stream().anyMatch(r -> r.startsWith("{\"file\":" + quote(inverse) + ",\"constructs\":[\"ROLE_INVERSE\"],\"dlName\":\"I\"")), out.toString());
+            assertTrue(rows.stream().anyMatch(r -> r.startsWith("{\"file\":" + quote(broken) + ",\"millis\":") && r.contains("\"error\":")), out.toString());
+        }
+    }
+
+    @Test
+    void testCsv() throws IOException {
+        Path transitive = write("transitive.ttl", prefixDefinition + ":x a owl:TransitiveProperty. :x owl:inverseOf :y.");
+        BatchExpressivityChecker batch = new BatchExpressivityChecker();
+        batch.setFormat(BatchExpressivityChecker.Format.CSV);
+        StringWriter out = new StringWriter();
+        batch.run(Arrays.asList(transitive), out);
+        String[] rows = out.toString().split("\n");
+        assertEquals("file,constructs,dlName,languages,millis,error", rows[0]);
+        assertTrue(rows[1].startsWith(transitive.toString() + ",ROLE_TRANSITIVE ROLE_INVERSE,+I,SI,"), rows[1]);
+        assertTrue(rows[1].endsWith(","), rows[1]);
+    }
+
+    @Test
+    void testChunkedNTriples() throws IOException {
+        Path nt = write("restriction.nt",
+                "<http://example.com/x> <http://www.w3.org/2000/01/rdf-schema#subClassOf> _:r .\n"
+                + "<http://example.com/p> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/2002/07/owl#TransitiveProperty> .\n"
+                + "_:r <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/2002/07/owl#Restriction> .\n"
+                + "_:r <http://www.w3.org/2002/07/owl#onProperty> <http://example.com/p> .\n"
+                + "_:r <http://www.w3.org/2002/07/owl#someValuesFrom> <http://example.com/y> .\n");
+        Path ttl = write("transitive.ttl", prefixDefinition + ":x a owl:TransitiveProperty.");
+        List<Path> chunked = new ArrayList<>();
+        BatchExpressivityChecker batch = new BatchExpressivityChecker(){
+            @Override
+            protected boolean isChunked(Path file, OntologySource source) throws IOException {
+                boolean result = super.isChunked(file, source);
+                if(result)
+                    chunked.add(file);
+                return result;
+            }
+        };
+        batch.setThreads(2);
+        batch.setChunkSize(100);
+        StringWriter out = new StringWriter();
+        batch.run(Arrays.asList(nt, ttl), out);
+        assertEquals(Arrays.asList(nt), chunked);
+        //the restriction is found across chunks
+        assertTrue(out.toString().contains("{\"file\":" + quote(nt) + ",\"constructs\":[\"FULL_EXISTENTIAL\",\"ROLE_TRANSITIVE\"]"), out.toString());
+        assertTrue(out.toString().contains("{\"file\":" + quote(ttl) + ",\"constructs\":[\"ROLE_TRANSITIVE\"]"), out.toString());
+
+        chunked.clear();
+        batch.setChunkSize(0);
+        out = new StringWriter();
+        batch.run(Arrays.asList(nt), out);
+        assertTrue(chunked.isEmpty());
+        assertTrue(out.toString().startsWith("{\"file\":" + quote(nt) + ",\"constructs\":[\"FULL_EXISTENTIAL\",\"ROLE_TRANSITIVE\"]"), out.toString());
+    }
+
+    private static String quote(Path p){
+        return "\"" + p.toString().replace("\\", "\\\\") + "\"";
+    }
+}
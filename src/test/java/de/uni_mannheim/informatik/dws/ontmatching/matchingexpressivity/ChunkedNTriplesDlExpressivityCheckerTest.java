@@ -0,0 +1,78 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedNTriplesDlExpressivityCheckerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        ":x owl:oneOf (\"Test\"). :x a rdfs:Datatype.",
+        ":x owl:oneOf (:y :z).",
+        ":x owl:onDatatype xsd:integer; owl:withRestrictions ([xsd:minInclusive 18]).",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:minQualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass owl:Thing].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:qualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:maxQualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onDataRange xsd:integer].",
+        ":x a owl:AllDisjointClasses. :x owl:members (:y :z).",
+        ":x a owl:AllDifferent. :x owl:members (:y :z).",
+        ":x a owl:ObjectProperty. :y a owl:ObjectProperty. :x owl:propertyDisjointWith :y.",
+        ":y a owl:ObjectProperty. :z a owl:ObjectProperty. :x a owl:AllDisjointProperties . :x owl:members (:y :z).",
+        ":x owl:propertyChainAxiom (:y :z). :a owl:inverseOf :b. :a a owl:TransitiveProperty."
+    })
+    void checkSameConstructsAsModelChecker(String ontText) throws IOException {
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader(prefixDefinition + ontText), null, "Turtle");
+        Path file = tempDir.resolve("ontology.nt");
+        try(OutputStream out = Files.newOutputStream(file)){
+            RDFDataMgr.write(out, m, Lang.NTRIPLES);
+        }
+
+        ChunkedNTriplesDlExpressivityChecker checker = new ChunkedNTriplesDlExpressivityChecker(file);
+        //very small chunks - each triple is in its own chunk
+        checker.setChunkSize(10);
+        checker.setThreads(4);
+        assertEquals(new ModelDlExpressivityChecker(m).getConstructs(), checker.getConstructs());
+    }
+
+    @Test
+    void testSplitAtLineBoundaries() throws IOException {
+        Path file = tempDir.resolve("lines.nt");
+        String content = "aaaa\nbb\n\ncccccccc\nd";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            List<long[]> chunks = ChunkedNTriplesDlExpressivityChecker.split(channel, 5);
+            assertEquals(3, chunks.size());
+            assertArrayEquals(new long[]{0, 5}, chunks.get(0));
+            assertArrayEquals(new long[]{5, 18}, chunks.get(1));
+            assertArrayEquals(new long[]{18, 19}, chunks.get(2));
+        }
+    }
+
+    @Test
+    void testOnlyLineBasedFormats() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedNTriplesDlExpressivityChecker(tempDir.resolve("ontology.ttl")));
+    }
+}
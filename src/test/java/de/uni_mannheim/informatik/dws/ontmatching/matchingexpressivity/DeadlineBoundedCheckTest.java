@@ -0,0 +1,71 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineBoundedCheckTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDeadlineWithEndpointWhichNeverAnswers() throws Exception {
+        //accepts connections but never sends a response
+        try(ServerSocket server = new ServerSocket(0)){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker("http://localhost:" + server.getLocalPort() + "/sparql");
+            checker.setMaxConcurrentQueries(4);
+            long start = System.nanoTime();
+            PartialExpressivityResult result = checker.checkAsync(Duration.ofMillis(500)).get(10, TimeUnit.SECONDS);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+            assertFalse(result.isComplete());
+            //has no pattern
+            assertEquals(ConstructStatus.DISPROVEN, result.getStatus(Construct.ATOMIC_NEGATION));
+            assertEquals(ConstructStatus.UNKNOWN, result.getStatus(Construct.ROLE_TRANSITIVE));
+            assertTrue(result.getProven().isEmpty());
+        }
+    }
+
+    @Test
+    void testUnreachableEndpointIsUnknown() throws Exception {
+        SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker("http://localhost:1/sparql");
+        checker.setMaxRetries(0);
+        checker.setBatchSize(0);
+        PartialExpressivityResult result = checker.checkAsync(Duration.ofSeconds(30)).get(30, TimeUnit.SECONDS);
+        assertEquals(EnumSet.of(Construct.ATOMIC_NEGATION), EnumSet.complementOf(EnumSet.copyOf(result.getUnknown())));
+    }
+
+    @Test
+    void testCompleteResultIsUsedByChecker() throws Exception {
+        String endpoint = "http://localhost:1/sparql";
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint);
+        checker.setBatchSize(0);
+        checker.setCache(cache);
+        for(String pattern : checker.patternToConstructs.keySet()){
+            cache.put(endpoint, null, checker.getQueryCatalog().createAskQuery(pattern, null).serialize(), Boolean.toString(pattern.equals("?x owl:inverseOf ?y.")));
+        }
+        PartialExpressivityResult result = checker.checkAsync(Duration.ofSeconds(30)).get(30, TimeUnit.SECONDS);
+        assertTrue(result.isComplete());
+        assertEquals(EnumSet.of(Construct.ROLE_INVERSE), result.getProven());
+        assertEquals(ConstructStatus.DISPROVEN, result.getStatus(Construct.ROLE_TRANSITIVE));
+        assertEquals(Arrays.asList(Construct.ROLE_INVERSE), checker.getConstructs());
+    }
+
+    @Test
+    void testCancelAbortsCheck() throws IOException {
+        try(ServerSocket server = new ServerSocket(0)){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker("http://localhost:" + server.getLocalPort() + "/sparql");
+            assertTrue(checker.checkAsync(Duration.ofMinutes(10)).cancel(true));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ExpressivityMetricsTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    private static Model model(){
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader(prefixDefinition + ":p owl:inverseOf :q. :p a owl:TransitiveProperty. :r a owl:SymmetricProperty. "), null, "Turtle");
+        return m;
+    }
+
+    @Test
+    void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().getCount());
+        for(int i = 0; i < 99; i++){
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(128, snapshot.getP50Micros());
+        assertEquals(128, snapshot.getP99Micros());
+        assertEquals(50000, snapshot.getMaxMicros());
+        assertEquals((99 * 100 + 50000) / 100, snapshot.getMeanMicros());
+    }
+
+    @Test
+    void testModelChecker() {
+        ExpressivityMetrics metrics = new ExpressivityMetrics();
+        ModelDlExpressivityChecker checker = new ModelDlExpressivityChecker(model());
+        checker.setVocabularyFilter(false);
+        checker.addListener(metrics);
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), checker.getConstructs());
+
+        assertEquals(1, metrics.getChecks());
+        assertEquals(0, metrics.getFailedChecks());
+        assertEquals(0, metrics.getQueries());
+        assertEquals(checker.patternToConstructs.size(), metrics.getPatternsChecked() + metrics.getShortCircuits());
+        //owl:inverseOf and owl:SymmetricProperty both prove I, the second one is skipped
+        assertEquals(1, metrics.getShortCircuits());
+        assertEquals(2, metrics.getPatternHits());
+        assertEquals(1, metrics.getConstructLatency().get("ROLE_INVERSE").getCount());
+        assertEquals(1, metrics.getConstructLatency().get("ROLE_TRANSITIVE").getCount());
+    }
+
+    @Test
+    void testEndpointQueriesAndJmx() throws Exception {
+        ExpressivityMetrics metrics = new ExpressivityMetrics();
+        ObjectName name = metrics.register("test");
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(model()).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setBatchSize(0);
+            checker.addListener(metrics);
+            checker.getConstructs();
+            assertEquals(endpoint.getRequests(), metrics.getQueries());
+            assertTrue(metrics.getBytesReceived() > 0);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "Checks"));
+            assertEquals((long) endpoint.getRequests(), server.getAttribute(name, "Queries"));
+            CompositeData latency = (CompositeData) server.getAttribute(name, "QueryLatency");
+            assertEquals((long) endpoint.getRequests(), latency.get("count"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void testFailedQueryWithTimeout() throws Exception {
+        ExpressivityMetrics metrics = new ExpressivityMetrics();
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(model()).setLatency(Duration.ofSeconds(2)).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setQueryTimeout(Duration.ofMillis(200));
+            checker.setMaxRetries(0);
+            checker.addListener(metrics);
+            long start = System.nanoTime();
+            assertThrows(RuntimeException.class, checker::getConstructs);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+            assertEquals(1, metrics.getFailedQueries());
+            assertEquals(1, metrics.getFailedChecks());
+        }
+    }
+
+    @Test
+    void testJfrListener() {
+        //JFR is only available on Java 11 or newer
+        assumeTrue(JfrExpressivityListener.isAvailable());
+        ModelDlExpressivityChecker checker = new ModelDlExpressivityChecker(model());
+        checker.addListener(new JfrExpressivityListener());
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), checker.getConstructs());
+    }
+}
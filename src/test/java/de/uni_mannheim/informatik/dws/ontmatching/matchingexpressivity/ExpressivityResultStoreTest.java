@@ -0,0 +1,154 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.riot.Lang;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semanticweb.owlapi.util.Construct;
+import org.semanticweb.owlapi.util.Languages;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressivityResultStoreTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>.";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPersistedAcrossRestarts() throws IOException {
+        Path file = tempDir.resolve("results.txt");
+        int mask = LanguageLattice.mask(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE));
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file)){
+            assertNull(store.get("abc"));
+            store.put("abc", mask, Arrays.asList(Languages.SI));
+        }
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file)){
+            ExpressivityResultStore.StoredResult result = store.get("abc");
+            assertEquals(mask, result.getConstructMask());
+            assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), new ArrayList<>(result.getConstructs()));
+            assertEquals(Arrays.asList(Languages.SI), result.getLanguages());
+        }
+        //results of another catalog are not used
+        QueryCatalog extended = QueryCatalog.getBuiltin().extend(new StringReader("PREFIX ex: <http://example.com/>\nROLE_TRANSITIVE ?x a ex:TransitiveRelation."));
+        assertNotEquals(QueryCatalog.getBuiltin().getVersion(), extended.getVersion());
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file, extended)){
+            assertNull(store.get("abc"));
+        }
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() throws IOException {
+        Path file = tempDir.resolve("results.txt");
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file)){
+            store.setMaxEntries(3);
+            store.put("a", 0, Collections.emptyList());
+            store.put("b", 0, Collections.emptyList());
+            store.put("c", 0, Collections.emptyList());
+            assertNotNull(store.get("a"));
+            store.put("d", 0, Collections.emptyList());
+            assertNull(store.get("b"));
+            assertEquals(3, store.size());
+        }
+        //the order of use is kept: a was used after c
+        assertEquals(3, Files.readAllLines(file).size());
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file)){
+            store.setMaxEntries(2);
+            assertNull(store.get("c"));
+            assertNotNull(store.get("a"));
+            assertNotNull(store.get("d"));
+        }
+    }
+
+    @Test
+    void testConcurrentWorkers() throws Exception {
+        Path file = tempDir.resolve("results.txt");
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file)){
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < 8; t++){
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for(int i = 0; i < 500; i++){
+                        store.put(thread + "-" + i, i, Collections.emptyList());
+                        assertEquals(i, store.get(thread + "-" + i).getConstructMask());
+                    }
+                }));
+            }
+            for(Future<?> f : futures){
+                f.get();
+            }
+            pool.shutdown();
+            assertEquals(4000, store.size());
+        }
+        try(ExpressivityResultStore store = new ExpressivityResultStore(file)){
+            assertEquals(4000, store.size());
+            assertThrows(IllegalStateException.class, () -> new ExpressivityResultStore(file));
+        }
+    }
+
+    @Test
+    void testCheckersUseStoreBeforeParsing() throws IOException {
+        Path ontology = tempDir.resolve("onto.ttl");
+        Files.write(ontology, (prefixDefinition + ":knows a owl:TransitiveProperty; owl:inverseOf :knownBy.").getBytes(StandardCharsets.UTF_8));
+        Path broken = tempDir.resolve("broken.ttl");
+        Files.write(broken, "this is no turtle".getBytes(StandardCharsets.UTF_8));
+        try(ExpressivityResultStore store = new ExpressivityResultStore(tempDir.resolve("results.txt"))){
+            StoredDlExpressivityChecker first = new StoredDlExpressivityChecker(ontology, store);
+            assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), first.getConstructs());
+            assertFalse(first.isStored());
+            StoredDlExpressivityChecker second = new StoredDlExpressivityChecker(ontology, store, f -> { throw new AssertionError("parsed again"); });
+            assertEquals(first.getConstructs(), second.getConstructs());
+            assertEquals(first.expressibleInLanguages(), second.expressibleInLanguages());
+            assertEquals(first.getDescriptionLogicName(), second.getDescriptionLogicName());
+            assertTrue(second.isStored());
+
+            //the broken file is never parsed if its content hash has a result
+            store.put(ExpressivityResultStore.contentHash(broken), LanguageLattice.mask(Arrays.asList(Construct.ROLE_TRANSITIVE)), Arrays.asList(Languages.SI));
+            BatchExpressivityChecker batch = new BatchExpressivityChecker();
+            batch.setResultStore(store);
+            batch.setFormat(BatchExpressivityChecker.Format.CSV);
+            StringWriter out = new StringWriter();
+            batch.run(Arrays.asList(ontology, broken), out);
+            List<String> rows = Arrays.asList(out.toString().split("\n"));
+            assertEquals(3, rows.size());
+            assertTrue(rows.stream().anyMatch(r -> r.startsWith(ontology + ",ROLE_TRANSITIVE ROLE_INVERSE,") && r.endsWith(",")), out.toString());
+            assertTrue(rows.stream().anyMatch(r -> r.startsWith(broken + ",ROLE_TRANSITIVE,+,SI,") && r.endsWith(",")), out.toString());
+        }
+    }
+
+    @Test
+    void testGivenInputLanguageIsPartOfKey() throws IOException {
+        Path ontology = tempDir.resolve("onto.ttl");
+        Files.write(ontology, (prefixDefinition + ":knows a owl:TransitiveProperty.").getBytes(StandardCharsets.UTF_8));
+        String contentHash = ExpressivityResultStore.contentHash(ontology);
+        assertEquals(contentHash, ExpressivityResultStore.key(contentHash, null));
+        assertNotEquals(contentHash, ExpressivityResultStore.key(contentHash, Lang.NTRIPLES));
+        try(ExpressivityResultStore store = new ExpressivityResultStore(tempDir.resolve("results.txt"))){
+            store.put(contentHash, LanguageLattice.mask(Arrays.asList(Construct.ROLE_TRANSITIVE)), Arrays.asList(Languages.SI));
+            BatchExpressivityChecker batch = new BatchExpressivityChecker();
+            batch.setResultStore(store);
+            batch.setFormat(BatchExpressivityChecker.Format.CSV);
+            //the Turtle file is no valid N-Triples, thus the stored result of the detected language must not be used
+            batch.setInputLanguage(Lang.NTRIPLES);
+            StringWriter out = new StringWriter();
+            batch.run(Arrays.asList(ontology), out);
+            String row = out.toString().split("\n")[1];
+            assertFalse(row.startsWith(ontology + ",ROLE_TRANSITIVE,"), row);
+            assertEquals(1, store.size());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressivityServerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    private static ExpressivityServer startServer() throws IOException {
+        return new ExpressivityServer().start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    private static HttpURLConnection request(ExpressivityServer server, String pathAndQuery, String contentType, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + pathAndQuery).openConnection();
+        if(body != null){
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            try(OutputStream os = connection.getOutputStream()){
+                os.write(body);
+            }
+        }
+        return connection;
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while((read = in.read(buffer)) != -1){
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testUploadAndCache() throws IOException {
+        byte[] ontology = (prefixDefinition + ":p owl:inverseOf :q. :p a owl:TransitiveProperty.").getBytes(StandardCharsets.UTF_8);
+        try(ExpressivityServer server = startServer()){
+            HttpURLConnection first = request(server, "/check", "text/turtle", ontology);
+            assertEquals(200, first.getResponseCode());
+            assertEquals("MISS", first.getHeaderField("X-Cache"));
+            String result = read(first);
+            assertTrue(result.contains("\"ROLE_INVERSE\""), result);
+            assertTrue(result.contains("\"ROLE_TRANSITIVE\""), result);
+
+            HttpURLConnection second = request(server, "/check?lang=TTL", "application/octet-stream", ontology);
+            assertEquals(200, second.getResponseCode());
+            assertEquals("HIT", second.getHeaderField("X-Cache"));
+            assertEquals(result, read(second));
+            assertEquals(1, server.getComputations());
+            assertEquals(1, server.getCacheHits());
+        }
+    }
+
+    @Test
+    void testCoalescing() throws Exception {
+        try(ExpressivityServer server = startServer()){
+            CountDownLatch release = new CountDownLatch(1);
+            String[] firstStatus = new String[1];
+            String[] secondStatus = new String[1];
+            CompletableFuture<String> first = server.computeOnce("key", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "result";
+            }, false, firstStatus);
+            CompletableFuture<String> second = server.computeOnce("key", () -> "other", false, secondStatus);
+            assertEquals("MISS", firstStatus[0]);
+            assertEquals("COALESCED", secondStatus[0]);
+            release.countDown();
+            assertEquals("result", first.get(10, TimeUnit.SECONDS));
+            assertEquals("result", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, server.getComputations());
+            assertEquals(1, server.getCoalesced());
+
+            //not cacheable, thus computed again
+            assertEquals("other", server.computeOnce("key", () -> "other", false, secondStatus).get(10, TimeUnit.SECONDS));
+            assertEquals("MISS", secondStatus[0]);
+
+            //a finished computation is never joined
+            for(int i = 0; i < 1000; i++){
+                String value = "value" + i;
+                server.computeOnce("loop", () -> value, false, firstStatus).get(10, TimeUnit.SECONDS);
+                assertEquals(value + "next", server.computeOnce("loop", () -> value + "next", false, secondStatus).get(10, TimeUnit.SECONDS));
+                assertEquals("MISS", secondStatus[0]);
+            }
+        }
+    }
+
+    @Test
+    void testEndpoint() throws IOException {
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader(prefixDefinition + ":r a owl:SymmetricProperty. "), null, "Turtle");
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(m).start();
+                ExpressivityServer server = startServer()){
+            server.setEndpointConfiguration(c -> c.setBatchSize(0));
+            //endpoints are not checked unless they are allowed
+            assertEquals(403, request(server, "/check?endpoint=" + URLEncoder.encode(endpoint.getUrl(), "UTF-8"), null, null).getResponseCode());
+            assertEquals(0, endpoint.getRequests());
+
+            server.setAllowedEndpoints(Arrays.asList(endpoint.getUrl()));
+            assertEquals(403, request(server, "/check?endpoint=" + URLEncoder.encode(endpoint.getUrl() + "/other", "UTF-8"), null, null).getResponseCode());
+            HttpURLConnection connection = request(server, "/check?endpoint=" + URLEncoder.encode(endpoint.getUrl(), "UTF-8"), null, null);
+            assertEquals(200, connection.getResponseCode());
+            String result = read(connection);
+            assertTrue(result.contains("\"constructs\":[\"ROLE_INVERSE\"]"), result);
+        }
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        try(ExpressivityServer server = startServer()){
+            server.setMaxUploadBytes(100);
+            HttpURLConnection invalid = request(server, "/check", "text/turtle", "this is not turtle".getBytes(StandardCharsets.UTF_8));
+            assertEquals(400, invalid.getResponseCode());
+            assertTrue(read(invalid).contains("\"error\""));
+
+            HttpURLConnection large = request(server, "/check", "text/turtle", new byte[1000]);
+            assertEquals(413, large.getResponseCode());
+
+            assertEquals(400, request(server, "/check", null, null).getResponseCode());
+            assertEquals(200, request(server, "/health", null, null).getResponseCode());
+        }
+    }
+
+    @Test
+    void testSaturatedServerRejectsBeforeReadingBody() throws IOException {
+        byte[] ontology = (prefixDefinition + ":p owl:inverseOf :q.").getBytes(StandardCharsets.UTF_8);
+        ExpressivityServer server = new ExpressivityServer();
+        server.setMaxRequests(1);
+        try(ExpressivityServer started = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))){
+            //holds the only admission: the body is announced but never sent completely
+            try(Socket slow = new Socket(InetAddress.getLoopbackAddress(), server.getPort())){
+                OutputStream os = slow.getOutputStream();
+                os.write(("POST /check HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/turtle\r\nContent-Length: 1000\r\n\r\n" + prefixDefinition).getBytes(StandardCharsets.UTF_8));
+                os.flush();
+                //wait until the slow request is admitted
+                sleep(500);
+                assertEquals(503, request(server, "/check", "text/turtle", ontology).getResponseCode());
+                assertEquals(0, server.getComputations());
+            }
+            //the admission is released when the slow request fails
+            int code = 0;
+            for(int i = 0; i < 100 && code != 200; i++){
+                code = request(server, "/check", "text/turtle", ontology).getResponseCode();
+                if(code != 200)
+                    sleep(50);
+            }
+            assertEquals(200, code);
+
+            server.setMaxUploadBytes(10);
+            assertEquals(413, request(server, "/check", "text/turtle", ontology).getResponseCode());
+        }
+    }
+
+    private static void sleep(long millis){
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
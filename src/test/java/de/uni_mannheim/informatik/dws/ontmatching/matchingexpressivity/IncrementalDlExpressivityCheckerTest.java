@@ -0,0 +1,87 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.OWL2;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalDlExpressivityCheckerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    private static String ontology = prefixDefinition +
+            ":x owl:oneOf (\"Test\"). :x a rdfs:Datatype. " +
+            ":a rdfs:subClassOf [a owl:Restriction; owl:onProperty :p; owl:someValuesFrom owl:Thing]. " +
+            ":b rdfs:subClassOf [a owl:Restriction; owl:onProperty :p; owl:qualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass :z]. " +
+            ":p a owl:ObjectProperty. :q a owl:ObjectProperty. :d a owl:AllDisjointProperties . :d owl:members (:p :q). " +
+            ":c owl:propertyChainAxiom (:p :q). :p owl:inverseOf :q. :p a owl:TransitiveProperty. :p rdfs:subPropertyOf :q. " +
+            ":i :p :j. :i owl:sameAs :k.";
+
+    @Test
+    void testAddAndDelete() {
+        Model m = ModelFactory.createDefaultModel();
+        IncrementalDlExpressivityChecker checker = new IncrementalDlExpressivityChecker(m);
+        assertEquals(Collections.emptyList(), checker.getConstructs());
+
+        Resource p = m.createResource("http://example.com/p");
+        m.add(p, RDF.type, OWL2.TransitiveProperty);
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), checker.getConstructs());
+
+        //duplicate add and delete of a missing triple are notified as well
+        m.getGraph().add(m.createStatement(p, RDF.type, OWL2.TransitiveProperty).asTriple());
+        m.getGraph().delete(m.createStatement(p, RDF.type, OWL2.SymmetricProperty).asTriple());
+        assertEquals(1, checker.getMatchCount("?x a owl:TransitiveProperty."));
+
+        m.remove(p, RDF.type, OWL2.TransitiveProperty);
+        assertEquals(0, checker.getMatchCount("?x a owl:TransitiveProperty."));
+        assertEquals(Collections.emptyList(), checker.getConstructs());
+        checker.close();
+    }
+
+    @Test
+    void testSameConstructsAsModelCheckerAfterChanges() {
+        Model source = ModelFactory.createDefaultModel();
+        source.read(new StringReader(ontology), null, "Turtle");
+        List<Statement> statements = new ArrayList<>(source.listStatements().toList());
+
+        Model m = ModelFactory.createDefaultModel();
+        IncrementalDlExpressivityChecker checker = new IncrementalDlExpressivityChecker(m);
+        Random random = new Random(1234);
+        for(int i = 0; i < 300; i++){
+            Statement s = statements.get(random.nextInt(statements.size()));
+            if(random.nextInt(3) == 0){
+                m.remove(s);
+            }else{
+                m.add(s);
+            }
+            assertEquals(new ModelDlExpressivityChecker(m).getConstructs(), checker.getConstructs(), "after change " + i);
+        }
+        m.add(source);
+        assertEquals(new ModelDlExpressivityChecker(m).getConstructs(), checker.getConstructs());
+        m.removeAll();
+        assertEquals(Collections.emptyList(), checker.getConstructs());
+        checker.close();
+    }
+
+    @Test
+    void testExistingModel() {
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader(ontology), null, "Turtle");
+        IncrementalDlExpressivityChecker checker = new IncrementalDlExpressivityChecker(m);
+        assertEquals(new ModelDlExpressivityChecker(m).getConstructs(), checker.getConstructs());
+        assertEquals(new ModelDlExpressivityChecker(m).expressibleInLanguages(), checker.expressibleInLanguages());
+        checker.close();
+    }
+}
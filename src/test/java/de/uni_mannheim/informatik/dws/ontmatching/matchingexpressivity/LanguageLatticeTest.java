@@ -0,0 +1,61 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.util.Construct;
+import org.semanticweb.owlapi.util.Languages;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageLatticeTest {
+
+    /**
+     * The recursive definition of OWLAPI's DLExpressivityChecker.
+     */
+    private static boolean minimalReference(Languages l, Set<Construct> constructs){
+        if(!l.components().containsAll(constructs))
+            return false;
+        return Arrays.stream(Languages.values()).filter(p -> p.isSubLanguageOf(l)).noneMatch(p -> minimalReference(p, constructs));
+    }
+
+    private static void assertSameAsReference(Set<Construct> constructs){
+        Construct.trim(constructs);
+        int mask = LanguageLattice.mask(constructs);
+        List<Languages> expected = Arrays.stream(Languages.values()).filter(l -> minimalReference(l, constructs)).collect(Collectors.toList());
+        assertEquals(expected, LanguageLattice.minimalLanguages(mask), constructs.toString());
+        for(Languages l : Languages.values()){
+            assertEquals(l.components().containsAll(constructs), LanguageLattice.isWithin(l, mask));
+        }
+    }
+
+    @Test
+    void testSameAsRecursiveDefinition() {
+        assertSameAsReference(EnumSet.noneOf(Construct.class));
+        for(Construct c : Construct.values()){
+            assertSameAsReference(EnumSet.of(c));
+        }
+        Random random = new Random(42);
+        for(int i = 0; i < 200; i++){
+            Set<Construct> constructs = EnumSet.noneOf(Construct.class);
+            for(Construct c : Construct.values()){
+                if(random.nextInt(4) == 0)
+                    constructs.add(c);
+            }
+            assertSameAsReference(constructs);
+        }
+    }
+
+    @Test
+    void testMemoized() {
+        int mask = LanguageLattice.trimmedMask(Arrays.asList(Construct.ROLE_INVERSE, Construct.ROLE_TRANSITIVE));
+        assertEquals(Arrays.asList(Languages.SI), LanguageLattice.minimalLanguages(mask));
+        assertSame(LanguageLattice.minimalLanguages(mask), LanguageLattice.minimalLanguages(mask));
+        assertTrue(LanguageLattice.isMinimal(Languages.SI, mask));
+        assertFalse(LanguageLattice.isMinimal(Languages.SHOIN, mask));
+    }
+}
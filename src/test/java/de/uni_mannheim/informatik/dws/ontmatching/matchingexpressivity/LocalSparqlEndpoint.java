@@ -0,0 +1,313 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.ResultSetFormatter;
+import org.apache.jena.rdf.model.Model;
+
+/**
+ * A local SPARQL endpoint (SELECT and ASK over HTTP GET and POST) backed by an in memory dataset.
+ * It simulates the network conditions of a remote endpoint: latency with jitter, a rate of failed requests
+ * and a limit of concurrent requests - requests above the limit are rejected like an overloaded endpoint does.
+ * Used by the tests and benchmarks of {@link SparqlDlExpressivityChecker}.
+ * @author shertlin
+ */
+public class LocalSparqlEndpoint implements AutoCloseable {
+
+    private final Dataset dataset;
+    private final Random random;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration jitter = Duration.ZERO;
+    private volatile double errorRate = 0;
+    private volatile int errorCode = 503;
+    private volatile Semaphore concurrentRequests;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    public LocalSparqlEndpoint(Dataset dataset, long seed) {
+        this.dataset = dataset;
+        this.random = new Random(seed);
+    }
+
+    public LocalSparqlEndpoint(Dataset dataset) {
+        this(dataset, 42);
+    }
+
+    public LocalSparqlEndpoint(Model defaultModel) {
+        this(DatasetFactory.create(defaultModel));
+    }
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     * @return this endpoint
+     * @throws IOException if the server cannot be started
+     */
+    public LocalSparqlEndpoint start() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "local-sparql-endpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/sparql", this::handle);
+        this.server.start();
+        return this;
+    }
+
+    /**
+     * @return the URL of the endpoint
+     */
+    public String getUrl() {
+        return "http://localhost:" + this.server.getAddress().getPort() + "/sparql";
+    }
+
+    @Override
+    public void close() {
+        if(this.server != null){
+            this.server.stop(0);
+            this.executor.shutdownNow();
+            this.server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.requests.incrementAndGet();
+        Semaphore limit = this.concurrentRequests;
+        if(limit != null && !limit.tryAcquire()){
+            this.rejected.incrementAndGet();
+            send(exchange, 503, "text/plain", "Too many concurrent requests".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        this.maxRunning.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(nextDelayMillis());
+            if(nextError()){
+                send(exchange, this.errorCode, "text/plain", "Injected error".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            answer(exchange);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException ex) {
+            try {
+                send(exchange, 400, "text/plain", String.valueOf(ex.getMessage()).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException closed) {
+                //the client is gone, e.g. after a timeout
+            }
+        } finally {
+            this.running.decrementAndGet();
+            if(limit != null)
+                limit.release();
+            exchange.close();
+        }
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        Map<String, List<String>> params = parseParameters(exchange.getRequestURI().getRawQuery());
+        String queryString = first(params, "query");
+        if("POST".equalsIgnoreCase(exchange.getRequestMethod())){
+            String body = readBody(exchange.getRequestBody());
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if(contentType != null && contentType.startsWith("application/sparql-query")){
+                queryString = body;
+            }else{
+                params.putAll(parseParameters(body));
+                queryString = first(params, "query");
+            }
+        }
+        if(queryString == null)
+            throw new IllegalArgumentException("Missing parameter query");
+        Query query = QueryFactory.create(queryString);
+        for(String graph : params.getOrDefault("default-graph-uri", new ArrayList<>())){
+            query.addGraphURI(graph);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.dataset.begin(ReadWrite.READ);
+        //the graphs of FROM (and default-graph-uri) are resolved by the query engine against the dataset
+        try(QueryExecution qe = QueryExecutionFactory.create(query, this.dataset)){
+            if(query.isAskType()){
+                ResultSetFormatter.outputAsJSON(out, qe.execAsk());
+            }else if(query.isSelectType()){
+                ResultSetFormatter.outputAsJSON(out, qe.execSelect());
+            }else{
+                throw new IllegalArgumentException("Only SELECT and ASK queries are supported");
+            }
+        } finally {
+            this.dataset.end();
+        }
+        send(exchange, 200, "application/sparql-results+json", out.toByteArray());
+    }
+
+    private synchronized long nextDelayMillis(){
+        long millis = this.latency.toMillis();
+        long jitterMillis = this.jitter.toMillis();
+        if(jitterMillis > 0)
+            millis += (long) ((this.random.nextDouble() * 2 - 1) * jitterMillis);
+        return Math.max(0, millis);
+    }
+
+    private synchronized boolean nextError(){
+        return this.errorRate > 0 && this.random.nextDouble() < this.errorRate;
+    }
+
+    private static void send(HttpExchange exchange, int code, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, body.length);
+        try(OutputStream os = exchange.getResponseBody()){
+            os.write(body);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while((read = in.read(buffer)) != -1){
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, List<String>> parseParameters(String raw) throws UnsupportedEncodingException {
+        Map<String, List<String>> params = new HashMap<>();
+        if(raw == null || raw.isEmpty())
+            return params;
+        for(String pair : raw.split("&")){
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+            params.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static String first(Map<String, List<String>> params, String key){
+        List<String> values = params.get(key);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * @param latency the time each request waits before it is answered
+     * @return this endpoint
+     */
+    public LocalSparqlEndpoint setLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @param jitter the latency varies uniformly by plus/minus this duration
+     * @return this endpoint
+     */
+    public LocalSparqlEndpoint setJitter(Duration jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * @param errorRate probability (0 to 1) that a request fails with the error code
+     * @return this endpoint
+     */
+    public LocalSparqlEndpoint setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param errorCode the HTTP status of the injected errors, default 503
+     * @return this endpoint
+     */
+    public LocalSparqlEndpoint setErrorCode(int errorCode) {
+        this.errorCode = errorCode;
+        return this;
+    }
+
+    /**
+     * @param maxConcurrentRequests requests above this number are rejected with 503 (zero or less for no limit)
+     * @return this endpoint
+     */
+    public LocalSparqlEndpoint setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.concurrentRequests = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+        return this;
+    }
+
+    /**
+     * @return number of requests received (including the rejected ones)
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of requests rejected because of the concurrency limit
+     */
+    public int getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the highest number of requests which were answered at the same time
+     */
+    public int getMaxRunning() {
+        return maxRunning.get();
+    }
+
+    /**
+     * Resets the request counters.
+     */
+    public void resetCounters() {
+        this.requests.set(0);
+        this.rejected.set(0);
+        this.maxRunning.set(0);
+    }
+
+    /**
+     * Waits until no request is answered anymore, e.g. after the client aborted queries.
+     * @param timeout maximum time to wait
+     * @return true if no request is running
+     * @throws InterruptedException if interrupted
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long end = System.nanoTime() + timeout.toNanos();
+        while(this.running.get() > 0){
+            if(System.nanoTime() > end)
+                return false;
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+}
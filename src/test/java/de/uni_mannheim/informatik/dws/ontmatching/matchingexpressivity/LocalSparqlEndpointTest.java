@@ -0,0 +1,107 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSparqlEndpointTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    private static String ontology = prefixDefinition +
+            ":a rdfs:subClassOf [a owl:Restriction; owl:onProperty :p; owl:someValuesFrom owl:Thing]. " +
+            ":b rdfs:subClassOf [a owl:Restriction; owl:onProperty :p; owl:qualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass :z]. " +
+            ":p a owl:ObjectProperty. :q a owl:ObjectProperty. " +
+            ":p owl:inverseOf :q. :p a owl:TransitiveProperty. :p rdfs:subPropertyOf :q. ";
+
+    private static Model model(){
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader(ontology), null, "Turtle");
+        return m;
+    }
+
+    @Test
+    void testSameConstructsForAllStrategies() throws Exception {
+        List<Construct> expected = new ModelDlExpressivityChecker(model()).getConstructs();
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(model()).start()){
+            for(int batchSize : new int[]{SparqlDlExpressivityChecker.DEFAULT_BATCH_SIZE, 0}){
+                for(int parallel : new int[]{1, 4}){
+                    SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+                    checker.setBatchSize(batchSize);
+                    checker.setMaxConcurrentQueries(parallel);
+                    assertEquals(expected, checker.getConstructs(), "batch size " + batchSize + " parallel " + parallel);
+                }
+            }
+            assertTrue(endpoint.getRequests() > 0);
+        }
+    }
+
+    @Test
+    void testNamedGraph() throws Exception {
+        Dataset dataset = DatasetFactory.create();
+        dataset.addNamedModel("http://example.com/graph", model());
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(dataset).start()){
+            assertTrue(new SparqlDlExpressivityChecker(endpoint.getUrl()).getConstructs().isEmpty());
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl(), "http://example.com/graph");
+            assertTrue(checker.getConstructs().contains(Construct.ROLE_TRANSITIVE));
+        }
+    }
+
+    @Test
+    void testInjectedErrorsAreRetried() throws Exception {
+        List<Construct> expected = new ModelDlExpressivityChecker(model()).getConstructs();
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(DatasetFactory.create(model()), 7).setErrorRate(0.3).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setBatchSize(0);
+            checker.setMaxRetries(20);
+            checker.setInitialBackoffMillis(1);
+            assertEquals(expected, checker.getConstructs());
+        }
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(model()).setErrorRate(1).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setBatchSize(0);
+            checker.setMaxRetries(1);
+            checker.setInitialBackoffMillis(1);
+            QueryExceptionHTTP ex = assertThrows(QueryExceptionHTTP.class, checker::getConstructs);
+            assertEquals(503, ex.getResponseCode());
+            assertEquals(2, endpoint.getRequests());
+        }
+    }
+
+    @Test
+    void testConcurrencyLimit() throws Exception {
+        List<Construct> expected = new ModelDlExpressivityChecker(model()).getConstructs();
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(model()).setLatency(Duration.ofMillis(20)).setMaxConcurrentRequests(1).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setBatchSize(0);
+            checker.setMaxConcurrentQueries(4);
+            checker.setMaxRetries(50);
+            checker.setInitialBackoffMillis(5);
+            assertEquals(expected, checker.getConstructs());
+            assertEquals(1, endpoint.getMaxRunning());
+            assertTrue(endpoint.getRejected() > 0);
+        }
+    }
+
+    @Test
+    void testLatencyAndTimeout() throws Exception {
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(model()).setLatency(Duration.ofSeconds(2)).setJitter(Duration.ofMillis(100)).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setQueryTimeout(Duration.ofMillis(200));
+            checker.setMaxRetries(0);
+            long start = System.nanoTime();
+            assertThrows(RuntimeException.class, checker::getConstructs);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativePatternMatcherTest {
+
+    private static boolean sparqlAsk(Op op, Graph graph){
+        QueryIterator it = Algebra.exec(op, graph);
+        try {
+            return it.hasNext();
+        } finally {
+            it.close();
+        }
+    }
+
+    /**
+     * @return the number of patterns which match
+     */
+    private static int assertSameAsSparql(QueryCatalog catalog, Graph graph){
+        int matches = 0;
+        for(String pattern : catalog.getPatternToConstructs().keySet()){
+            NativePatternMatcher matcher = catalog.getMatcher(pattern);
+            if(matcher == null)
+                continue;
+            boolean expected = sparqlAsk(catalog.getAlgebra(pattern), graph);
+            assertEquals(expected, matcher.ask(graph), pattern + " on " + graph);
+            if(expected)
+                matches++;
+        }
+        return matches;
+    }
+
+    @Test
+    void testAllBuiltinPatternsCompile() {
+        QueryCatalog catalog = QueryCatalog.getBuiltin();
+        for(String pattern : catalog.getPatternToConstructs().keySet()){
+            assertNotNull(catalog.getMatcher(pattern), pattern);
+        }
+    }
+
+    @Test
+    void testSameAsSparqlOnRandomGraphs() {
+        QueryCatalog catalog = QueryCatalog.getBuiltin();
+        List<Node> predicates = new ArrayList<>();
+        List<Node> classes = new ArrayList<>();
+        for(Triple t : catalog.getVocabulary()){
+            if(t.getObject().isConcrete())
+                classes.add(t.getObject());
+            else
+                predicates.add(t.getPredicate());
+        }
+        List<Node> terms = new ArrayList<>();
+        for(String name : new String[]{"a", "b", "c", "d"}){
+            terms.add(NodeFactory.createURI("http://example.com/" + name));
+        }
+        terms.add(OWL.Thing.asNode());
+        terms.add(RDFS.Literal.asNode());
+        terms.add(NodeFactory.createBlankNode("b1"));
+        terms.add(NodeFactory.createBlankNode("b2"));
+        terms.add(NodeFactory.createLiteral("x"));
+        terms.add(NodeFactory.createLiteral("1", XSDDatatype.XSDnonNegativeInteger));
+        terms.add(NodeFactory.createLiteral("01", XSDDatatype.XSDnonNegativeInteger));
+
+        Random random = new Random(42);
+        int matches = 0;
+        for(int i = 0; i < 300; i++){
+            Graph graph = ModelFactory.createDefaultModel().getGraph();
+            int size = 1 + random.nextInt(12);
+            for(int j = 0; j < size; j++){
+                Node subject = terms.get(random.nextInt(8));
+                if(random.nextInt(4) == 0){
+                    graph.add(Triple.create(subject, RDF.type.asNode(), classes.get(random.nextInt(classes.size()))));
+                }else{
+                    graph.add(Triple.create(subject, predicates.get(random.nextInt(predicates.size())), terms.get(random.nextInt(terms.size()))));
+                }
+            }
+            matches += assertSameAsSparql(catalog, graph);
+        }
+        assertTrue(matches > 300, "only " + matches + " matches");
+    }
+
+    @Test
+    void testVariablesAndFilters() throws IOException {
+        QueryCatalog catalog = QueryCatalog.getBuiltin().extend(new StringReader(
+                "PREFIX ex: <http://example.com/>\n"
+                + "ROLE_REFLEXIVITY_CHAINS ?x ex:p ?x.\n"
+                + "ROLE_COMPLEX ?x ?p ?y. ?y ?p ?x. FILTER(?p != ex:q)\n"
+                + "D ?x ex:p ?y. FILTER(bound(?unbound) || isLiteral(?other))\n"
+                + "NOMINALS ?x ex:p ?y. OPTIONAL { ?y ex:q ?z } FILTER(!bound(?z))\n"));
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader("@prefix ex: <http://example.com/>. ex:a ex:p ex:b. ex:b ex:p ex:a. ex:b ex:q ex:c. ex:c ex:q ex:b. ex:d ex:p ex:d."), null, "Turtle");
+        assertSameAsSparql(catalog, m.getGraph());
+        m.remove(m.createResource("http://example.com/d"), m.createProperty("http://example.com/p"), m.createResource("http://example.com/d"));
+        assertSameAsSparql(catalog, m.getGraph());
+
+        String optional = catalog.getConstructToPatterns().get(Construct.NOMINALS).get(catalog.getConstructToPatterns().get(Construct.NOMINALS).size() - 1);
+        assertNull(catalog.getMatcher(optional));
+        String unbound = catalog.getConstructToPatterns().get(Construct.D).get(catalog.getConstructToPatterns().get(Construct.D).size() - 1);
+        assertFalse(catalog.getMatcher(unbound).ask(m.getGraph()));
+    }
+
+    @Test
+    void testSameConstructsAsSparqlEngine() {
+        String ontology = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>."
+                + ":Student rdfs:subClassOf [a owl:Restriction; owl:onProperty :attends; owl:maxQualifiedCardinality \"2\"^^xsd:nonNegativeInteger; owl:onClass :Course]. "
+                + ":Weekday owl:oneOf (:Monday :Tuesday). :Age owl:oneOf (1 2). :x owl:hasValue 42. "
+                + ":knows a owl:ObjectProperty, owl:SymmetricProperty; owl:inverseOf :knownBy; rdfs:domain :Person. ";
+        ModelDlExpressivityChecker nativeChecker = new ModelDlExpressivityChecker(ontology);
+        ModelDlExpressivityChecker sparqlChecker = new ModelDlExpressivityChecker(ontology);
+        sparqlChecker.setNativeMatching(false);
+        assertEquals(sparqlChecker.getConstructs(), nativeChecker.getConstructs());
+        assertEquals(sparqlChecker.expressibleInLanguages(), nativeChecker.expressibleInLanguages());
+    }
+}
@@ -0,0 +1,144 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.jena.riot.Lang;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OntologySourceTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>.";
+
+    private static String ontology = prefixDefinition
+            + ":Person rdfs:subClassOf [a owl:Restriction; owl:onProperty :knows; owl:someValuesFrom :Person]. "
+            + ":knows a owl:TransitiveProperty; owl:inverseOf :knownBy. ";
+
+    private static String rdfXml = "<?xml version=\"1.0\"?>\n<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:owl=\"http://www.w3.org/2002/07/owl#\">"
+            + "<owl:TransitiveProperty rdf:about=\"http://example.com/knows\"/></rdf:RDF>";
+
+    private static final List<Construct> expected = Arrays.asList(Construct.FULL_EXISTENTIAL, Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE);
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] compress(String text, OntologySource.Compression compression) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out;
+        switch(compression){
+            case GZIP: out = new GZIPOutputStream(bytes); break;
+            case BZIP2: out = new BZip2CompressorOutputStream(bytes); break;
+            case XZ: out = new XZCompressorOutputStream(bytes); break;
+            default: out = bytes;
+        }
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testCompressedFiles() throws IOException {
+        for(OntologySource.Compression compression : OntologySource.Compression.values()){
+            //with and without compression extension: the compression is detected from the content
+            for(String name : Arrays.asList("onto.ttl", "onto.ttl." + compression.name().toLowerCase())){
+                Path file = tempDir.resolve(name);
+                Files.write(file, compress(ontology, compression));
+                try(OntologySource source = OntologySource.open(file)){
+                    assertEquals(compression, source.getCompression());
+                    assertEquals(Lang.TURTLE, source.getLanguage());
+                }
+                assertEquals(expected, new ModelDlExpressivityChecker(file).getConstructs(), name);
+                assertEquals(expected, new StreamDlExpressivityChecker(file).getConstructs(), name);
+            }
+        }
+    }
+
+    @Test
+    void testLanguageFromContent() throws IOException {
+        assertEquals(Lang.RDFXML, OntologySource.detectLanguage(rdfXml.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Lang.JSONLD, OntologySource.detectLanguage(" {\"@id\": \"x\"}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Lang.TURTLE, OntologySource.detectLanguage(ontology.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Lang.TURTLE, OntologySource.detectLanguage(new byte[0]));
+
+        Path file = tempDir.resolve("onto.data.xz");
+        Files.write(file, compress(rdfXml, OntologySource.Compression.XZ));
+        try(OntologySource source = OntologySource.open(file)){
+            assertEquals(Lang.RDFXML, source.getLanguage());
+        }
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), new ModelDlExpressivityChecker(file).getConstructs());
+        assertEquals(Lang.RDFXML, OntologySource.filenameToLang("onto.owl.bz2"));
+        assertNull(OntologySource.filenameToLang("onto.data.gz"));
+    }
+
+    @Test
+    void testStreamAndChannel() throws IOException {
+        byte[] gzip = compress(ontology, OntologySource.Compression.GZIP);
+        assertEquals(expected, new ModelDlExpressivityChecker(new ByteArrayInputStream(gzip), null).getConstructs());
+        OntologySource channel = OntologySource.of(Channels.newChannel(new ByteArrayInputStream(gzip)), Lang.TURTLE, null);
+        assertEquals(expected, new StreamDlExpressivityChecker(channel).getConstructs());
+    }
+
+    @Test
+    void testParseErrorOfCompressedInput() throws IOException {
+        Path file = tempDir.resolve("broken.ttl.bz2");
+        Files.write(file, compress(ontology + " :a :b", OntologySource.Compression.BZIP2));
+        assertThrows(RuntimeException.class, () -> new StreamDlExpressivityChecker(file).getConstructs());
+
+        byte[] truncated = compress(ontology, OntologySource.Compression.GZIP);
+        Path partial = tempDir.resolve("partial.ttl.gz");
+        Files.write(partial, Arrays.copyOf(truncated, truncated.length / 2));
+        assertThrows(RuntimeException.class, () -> new ModelDlExpressivityChecker(partial).getConstructs());
+    }
+
+    @Test
+    void testUncheckedErrorWhileDecompressing() throws IOException {
+        byte[] gzip = compress(ontology, OntologySource.Compression.GZIP);
+        //returns a few bytes per read and fails unchecked after the header
+        InputStream failing = new InputStream() {
+            private int position;
+            @Override
+            public int read() {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if(this.position >= 20)
+                    throw new IllegalStateException("broken source");
+                int n = Math.min(len, 10);
+                System.arraycopy(gzip, this.position, b, off, n);
+                this.position += n;
+                return n;
+            }
+        };
+        IOException ex = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, () -> OntologySource.of(failing, null, null)));
+        assertTrue(ex.getCause() instanceof IllegalStateException, ex.toString());
+    }
+
+    @Test
+    void testBatchStandardIn() throws IOException {
+        BatchExpressivityChecker batch = new BatchExpressivityChecker();
+        StringWriter out = new StringWriter();
+        batch.run(OntologySource.of(new ByteArrayInputStream(compress(ontology, OntologySource.Compression.XZ)), null, null), out);
+        assertTrue(out.toString().startsWith("{\"file\":\"-\",\"constructs\":["), out.toString());
+        assertTrue(out.toString().contains("\"ROLE_TRANSITIVE\""), out.toString());
+        assertFalse(out.toString().contains("\"error\""), out.toString());
+    }
+}
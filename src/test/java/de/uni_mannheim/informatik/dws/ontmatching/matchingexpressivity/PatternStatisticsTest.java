@@ -0,0 +1,98 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternStatisticsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testOrderByCostPerHit() {
+        PatternStatistics statistics = new PatternStatistics();
+        //slow but always matches
+        statistics.record("slow", true, 1000);
+        statistics.record("slow", true, 1000);
+        //fast but never matches
+        statistics.record("miss", false, 10);
+        statistics.record("miss", false, 10);
+        //fast and matches
+        statistics.record("cheap", true, 10);
+        assertEquals(Arrays.asList("cheap", "miss", "slow"), statistics.order(Arrays.asList("slow", "miss", "cheap")));
+
+        for(int i = 0; i < 1000; i++){
+            statistics.record("miss", false, 10);
+        }
+        assertEquals(Arrays.asList("cheap", "slow", "miss"), statistics.order(Arrays.asList("slow", "miss", "cheap")));
+        //unknown patterns keep their relative order
+        assertEquals(Arrays.asList("a", "b"), statistics.order(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    void testSaveAndLoadPerScope() {
+        PatternStatistics statistics = PatternStatistics.forScope(tempDir, "http://example.com/sparql");
+        statistics.record("?x a owl:TransitiveProperty.", true, 42);
+        statistics.record("?x  a owl:TransitiveProperty. ", false, 42);
+        statistics.save();
+
+        PatternStatistics loaded = PatternStatistics.forScope(tempDir, "http://example.com/sparql");
+        assertEquals(2, loaded.getRuns("?x a owl:TransitiveProperty."));
+        assertEquals(1, loaded.getHits("?x a owl:TransitiveProperty."));
+        assertEquals(0, PatternStatistics.forScope(tempDir, "http://example.com/other").getRuns("?x a owl:TransitiveProperty."));
+    }
+
+    @Test
+    void testCheckerRecordsAndOrders() {
+        PatternStatistics statistics = new PatternStatistics();
+        ModelDlExpressivityChecker checker = new ModelDlExpressivityChecker(
+                "@prefix owl: <http://www.w3.org/2002/07/owl#> . @prefix : <http://example.com/> . :p a owl:TransitiveProperty . :q owl:inverseOf :p .");
+        checker.setStatistics(statistics);
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), checker.getConstructs());
+        assertEquals(1, statistics.getHits("?x a owl:TransitiveProperty."));
+        assertEquals(1, statistics.getHits("?x owl:inverseOf ?y."));
+
+        //a pattern with a high hit rate is checked first in the next run
+        for(int i = 0; i < 10; i++){
+            statistics.record("?x owl:inverseOf ?y.", true, 1);
+        }
+        List<String> ordered = new ArrayList<>(checker.getPatternsFor(Arrays.asList(Construct.values())).keySet());
+        assertEquals("?x owl:inverseOf ?y.", ordered.get(0));
+        assertEquals(checker.patternToConstructs.size(), ordered.size());
+    }
+
+    @Test
+    void testBatchedEndpointCheckRecords() throws Exception {
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader("@prefix owl: <http://www.w3.org/2002/07/owl#> . @prefix : <http://example.com/> . :p a owl:TransitiveProperty ."), null, "Turtle");
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(m).start()){
+            PatternStatistics statistics = new PatternStatistics();
+            //batched queries are the default
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setStatistics(statistics);
+            assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), checker.getConstructs());
+            assertTrue(statistics.getRuns("?x a owl:TransitiveProperty.") > 0);
+            assertEquals(1, statistics.getHits("?x a owl:TransitiveProperty."));
+            assertEquals(1, statistics.getRuns("?x owl:inverseOf ?y."));
+            assertEquals(0, statistics.getHits("?x owl:inverseOf ?y."));
+
+            SparqlDlExpressivityChecker async = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            async.setStatistics(statistics);
+            assertTrue(async.checkAsync(Duration.ofSeconds(30)).get(30, TimeUnit.SECONDS).isComplete());
+            assertEquals(2, statistics.getHits("?x a owl:TransitiveProperty."));
+            assertEquals(2, statistics.getRuns("?x owl:inverseOf ?y."));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.vocabulary.OWL2;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCatalogTest {
+
+    @Test
+    void testCatalogIsShared() {
+        ModelDlExpressivityChecker one = new ModelDlExpressivityChecker("");
+        ModelDlExpressivityChecker two = new ModelDlExpressivityChecker("");
+        assertSame(one.getQueryCatalog(), two.getQueryCatalog());
+        assertSame(one.constructToSparqlQuery, two.constructToSparqlQuery);
+    }
+
+    @Test
+    void testSubclassOverridesPatterns() {
+        String ontology = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. :p owl:inverseOf :q. :p a owl:TransitiveProperty.";
+        ModelDlExpressivityChecker onlyTransitive = new ModelDlExpressivityChecker(ontology) {
+            @Override
+            protected Map<Construct, List<String>> createConstructToSparqlQuery() {
+                Map<Construct, List<String>> m = new HashMap<>(super.createConstructToSparqlQuery());
+                m.put(Construct.ROLE_INVERSE, Collections.emptyList());
+                return m;
+            }
+        };
+        assertNotSame(QueryCatalog.getDefault(), onlyTransitive.getQueryCatalog());
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), onlyTransitive.getConstructs());
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), new ModelDlExpressivityChecker(ontology).getConstructs());
+    }
+
+    @Test
+    void testSubclassAddsPattern() {
+        String ontology = "@prefix ex: <http://example.com/>. ex:p a ex:TransitiveRelation.";
+        ModelDlExpressivityChecker extended = new ModelDlExpressivityChecker(ontology) {
+            @Override
+            protected Map<Construct, List<String>> createConstructToSparqlQuery() {
+                Map<Construct, List<String>> m = super.createConstructToSparqlQuery();
+                m.get(Construct.ROLE_TRANSITIVE).add("?x a <http://example.com/TransitiveRelation>.");
+                return m;
+            }
+        };
+        assertNotSame(QueryCatalog.getDefault(), extended.getQueryCatalog());
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), extended.getConstructs());
+        assertEquals(QueryCatalog.getDefault().getConstructToPatterns().get(Construct.ROLE_TRANSITIVE).size() + 1,
+                extended.getQueryCatalog().getConstructToPatterns().get(Construct.ROLE_TRANSITIVE).size());
+        assertTrue(new ModelDlExpressivityChecker(ontology).getConstructs().isEmpty());
+        assertSame(QueryCatalog.getDefault(), new ModelDlExpressivityChecker(ontology).getQueryCatalog());
+    }
+
+    @Test
+    void testAskQueryWithGraph() {
+        QueryCatalog catalog = QueryCatalog.getBuiltin();
+        String pattern = "?x owl:inverseOf ?y.";
+        Query query = catalog.createAskQuery(pattern, "http://example.com/graph");
+        assertEquals(QueryFactory.create(catalog.getPrefixes() + " ASK FROM <http://example.com/graph> WHERE{ " + pattern + " }"), query);
+        assertTrue(catalog.createAskQuery(pattern, null).getGraphURIs().isEmpty());
+    }
+
+    @Test
+    void testExtendCatalog() throws IOException {
+        String file = "# additional patterns\n" +
+                "PREFIX ex: <http://example.com/>\n" +
+                "\n" +
+                "ROLE_TRANSITIVE ?x a ex:TransitiveRelation.\n" +
+                "F   ?x owl:inverseOf ?y.\n";
+        QueryCatalog catalog = QueryCatalog.getBuiltin().extend(new StringReader(file));
+        assertTrue(catalog.getConstructToPatterns().get(Construct.ROLE_TRANSITIVE).contains("?x a ex:TransitiveRelation."));
+        assertTrue(catalog.getPatternToConstructs().get("?x owl:inverseOf ?y.").containsAll(Arrays.asList(Construct.ROLE_INVERSE, Construct.F)));
+
+        ModelDlExpressivityChecker checker = new ModelDlExpressivityChecker("@prefix ex: <http://example.com/>. ex:p a ex:TransitiveRelation.");
+        checker.setQueryCatalog(catalog);
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), checker.getConstructs());
+    }
+
+    @Test
+    void testRequiredVocabulary() {
+        QueryCatalog catalog = QueryCatalog.getBuiltin();
+        String pattern = "?x owl:propertyDisjointWith ?y. ?x a owl:ObjectProperty. ?y a owl:ObjectProperty.";
+        Triple disjoint = Triple.create(Node.ANY, OWL2.propertyDisjointWith.asNode(), Node.ANY);
+        Triple objectProperty = Triple.create(Node.ANY, RDF.type.asNode(), OWL2.ObjectProperty.asNode());
+        
+        BitSet present = new BitSet();
+        present.set(catalog.getVocabulary().indexOf(disjoint));
+        assertFalse(catalog.canMatch(pattern, present));
+        present.set(catalog.getVocabulary().indexOf(objectProperty));
+        assertTrue(catalog.canMatch(pattern, present));
+        
+        ModelDlExpressivityChecker checker = new ModelDlExpressivityChecker("<http://example.com/x> a <http://www.w3.org/2002/07/owl#TransitiveProperty>; <http://www.w3.org/2000/01/rdf-schema#domain> <http://example.com/y>.");
+        BitSet vocabulary = checker.getPresentVocabulary();
+        assertEquals(2, vocabulary.cardinality());
+        assertEquals(Arrays.asList(Construct.ROLE_DOMAIN_RANGE, Construct.ROLE_TRANSITIVE), checker.getConstructs());
+    }
+
+    @Test
+    void testUnknownConstruct() {
+        assertThrows(IllegalArgumentException.class, () -> QueryCatalog.getBuiltin().extend(new StringReader("FOO ?x ?y ?z.")));
+    }
+}
@@ -0,0 +1,135 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.apache.jena.query.Query;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPutAndGet() {
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        assertNull(cache.get("http://example.com/sparql", null, "ASK {?s ?p ?o}"));
+        cache.put("http://example.com/sparql", null, "ASK {?s ?p ?o}", "true");
+        assertEquals("true", cache.get("http://example.com/sparql", null, "ASK {?s ?p ?o}"));
+        assertNull(cache.get("http://example.com/sparql", "http://example.com/graph", "ASK {?s ?p ?o}"));
+        assertNull(cache.get("http://example.com/other", null, "ASK {?s ?p ?o}"));
+
+        //another instance on the same directory
+        assertEquals("true", new QueryResultCache(tempDir).get("http://example.com/sparql", null, "ASK {?s ?p ?o}"));
+    }
+
+    @Test
+    void testTimeToLive() {
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        cache.setTimeToLive(Duration.ofMillis(-1));
+        cache.put("http://example.com/sparql", null, "ASK {?s ?p ?o}", "true");
+        assertNull(cache.get("http://example.com/sparql", null, "ASK {?s ?p ?o}"));
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() throws InterruptedException {
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        cache.put("http://example.com/sparql", null, "one", "true");
+        Thread.sleep(20);
+        cache.put("http://example.com/sparql", null, "two", "true");
+        Thread.sleep(20);
+        cache.get("http://example.com/sparql", null, "one");
+        Thread.sleep(20);
+        //an entry has about 20 bytes - only two fit
+        cache.setMaxSizeBytes(45);
+        cache.put("http://example.com/sparql", null, "three", "true");
+        assertEquals("true", cache.get("http://example.com/sparql", null, "one"));
+        assertNull(cache.get("http://example.com/sparql", null, "two"));
+        assertEquals("true", cache.get("http://example.com/sparql", null, "three"));
+    }
+
+    @Test
+    void testSizeTrackedWhileWriting() throws IOException {
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        //an entry has about 20 bytes - three fit
+        cache.setMaxSizeBytes(65);
+        //replacing an entry does not grow the cache
+        for(int i = 0; i < 100; i++){
+            cache.put("http://example.com/sparql", null, "one", "true");
+        }
+        cache.put("http://example.com/sparql", null, "two", "true");
+        cache.put("http://example.com/sparql", null, "three", "true");
+        assertEquals("true", cache.get("http://example.com/sparql", null, "one"));
+
+        for(int i = 0; i < 20; i++){
+            cache.put("http://example.com/sparql", null, "query" + i, "true");
+            assertTrue(sizeOnDisk() <= 65, "size " + sizeOnDisk());
+        }
+        assertEquals("true", cache.get("http://example.com/sparql", null, "query19"));
+    }
+
+    private long sizeOnDisk() throws IOException {
+        try(Stream<Path> files = Files.walk(tempDir)){
+            return files.filter(f -> f.toString().endsWith(".result")).mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+
+    @Test
+    void testModifiedProbe() throws IOException {
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader("@prefix void: <http://rdfs.org/ns/void#>. @prefix dcterms: <http://purl.org/dc/terms/>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>."
+                + "<http://example.com/dataset> a void:Dataset; dcterms:modified \"2019-01-01\"^^xsd:date."), null, "Turtle");
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(m).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setCacheProbe(SparqlDlExpressivityChecker.MODIFIED_PROBE);
+            assertTrue(checker.probe().contains("2019-01-01"), checker.probe());
+        }
+    }
+
+    @Test
+    void testProbeInvalidates() {
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        assertFalse(cache.validate("http://example.com/sparql", null, "100"));
+        cache.put("http://example.com/sparql", null, "ASK {?s ?p ?o}", "true");
+        cache.put("http://example.com/other", null, "ASK {?s ?p ?o}", "true");
+        assertTrue(cache.validate("http://example.com/sparql", null, "100"));
+        assertEquals("true", cache.get("http://example.com/sparql", null, "ASK {?s ?p ?o}"));
+
+        assertFalse(cache.validate("http://example.com/sparql", null, "101"));
+        assertNull(cache.get("http://example.com/sparql", null, "ASK {?s ?p ?o}"));
+        assertEquals("true", cache.get("http://example.com/other", null, "ASK {?s ?p ?o}"));
+    }
+
+    @Test
+    void testWarmCacheDoesNotContactEndpoint() {
+        //nothing listens on this port
+        String endpoint = "http://localhost:1/sparql";
+        QueryResultCache cache = new QueryResultCache(tempDir);
+        SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint);
+        checker.setBatchSize(100);
+        Query query = checker.createBatchQuery(checker.constructToSparqlQuery.keySet());
+        cache.put(endpoint, null, query.serialize(), "ROLE_TRANSITIVE ROLE_INVERSE");
+
+        checker.setCache(cache);
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE, Construct.ROLE_INVERSE), checker.getConstructs());
+
+        SparqlDlExpressivityChecker askChecker = new SparqlDlExpressivityChecker(endpoint);
+        askChecker.setBatchSize(0);
+        askChecker.setCache(cache);
+        for(String pattern : askChecker.patternToConstructs.keySet()){
+            cache.put(endpoint, null, askChecker.getQueryCatalog().createAskQuery(pattern, null).serialize(), Boolean.toString(pattern.equals("?x a owl:TransitiveProperty.")));
+        }
+        assertEquals(Arrays.asList(Construct.ROLE_TRANSITIVE), askChecker.getConstructs());
+    }
+}
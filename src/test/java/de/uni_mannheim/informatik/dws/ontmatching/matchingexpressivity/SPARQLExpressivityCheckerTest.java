@@ -7,6 +7,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Scanner;
 import java.util.logging.Level;
@@ -90,6 +91,42 @@ class SPARQLExpressivityCheckerTest {
         }
     }
 
+    @Test
+    void testSharedPatternsAreIndexedOnce() {
+        ModelDlExpressivityChecker c = new ModelDlExpressivityChecker("");
+        assertEquals(EnumSet.of(CONCEPT_COMPLEX_NEGATION, CONCEPT_UNION, NOMINALS), c.patternToConstructs.get("?x owl:differentFrom ?y."));
+        assertEquals(EnumSet.of(CONCEPT_COMPLEX_NEGATION, CONCEPT_UNION), c.patternToConstructs.get("?x owl:disjointUnionOf ?y."));
+        assertEquals(EnumSet.of(FULL_EXISTENTIAL, NOMINALS), c.patternToConstructs.get("?x owl:hasValue ?y. FILTER(isURI(?y))"));
+        int patterns = 0;
+        for (List<String> queries : c.constructToSparqlQuery.values()) {
+            patterns += queries.size();
+        }
+        assertTrue(c.patternToConstructs.size() < patterns);
+    }
+
+    @Test
+    void testParallelSameAsSequential() {
+        String ont = prefixDefinition + ":a owl:inverseOf :b. :c a owl:ReflexiveProperty. :d a owl:TransitiveProperty. :e rdfs:subPropertyOf :f. "
+                + ":x owl:unionOf (:y :z). :x owl:complementOf :y. :x rdfs:subClassOf [a owl:Restriction; owl:onProperty :a; owl:someValuesFrom :y]. :i owl:sameAs :j.";
+        List<Construct> sequential = new ModelDlExpressivityChecker(ont).getConstructs();
+        assertTrue(sequential.contains(ROLE_COMPLEX));
+        assertFalse(sequential.contains(ROLE_REFLEXIVITY_CHAINS));
+        for(int i = 0; i < 20; i++){
+            ModelDlExpressivityChecker parallel = new ModelDlExpressivityChecker(ont);
+            parallel.setParallelism(8);
+            assertEquals(sequential, parallel.getConstructs());
+        }
+    }
+
+    @Test
+    void testMergeRuleIndependentOfOrder() {
+        List<Construct> first = new NamedGraphExpressivity("g", Arrays.asList(Construct.ROLE_INVERSE, ROLE_REFLEXIVITY_CHAINS)).getConstructs();
+        List<Construct> second = new NamedGraphExpressivity("g", Arrays.asList(ROLE_REFLEXIVITY_CHAINS, Construct.ROLE_INVERSE)).getConstructs();
+        assertEquals(first, second);
+        assertTrue(first.contains(ROLE_COMPLEX));
+        assertFalse(first.contains(ROLE_REFLEXIVITY_CHAINS));
+    }
+
     @Test
     void testCheckConstructsAgainstEmptyModel() {
         ModelDlExpressivityChecker c = new ModelDlExpressivityChecker("");
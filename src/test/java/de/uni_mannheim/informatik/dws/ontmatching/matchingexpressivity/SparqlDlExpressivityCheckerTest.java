@@ -0,0 +1,149 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparqlDlExpressivityCheckerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    @Test
+    void testBatchQueryWithGraph() {
+        SparqlDlExpressivityChecker c = new SparqlDlExpressivityChecker("http://localhost/sparql", "http://example.com/graph");
+        Query query = c.createBatchQuery(c.constructToSparqlQuery.keySet());
+        assertTrue(query.getGraphURIs().contains("http://example.com/graph"));
+        assertTrue(QueryFactory.create(query.toString()).getGraphURIs().contains("http://example.com/graph"));
+    }
+
+    @Test
+    void testSweepNamedGraphs() throws Exception {
+        String[] ontologies = {
+            ":p owl:inverseOf :q. :p a owl:TransitiveProperty.",
+            ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:someValuesFrom owl:Thing].",
+            ":x owl:oneOf (:y :z). :x owl:unionOf (:y :z).",
+            ":x rdfs:subClassOf :y."
+        };
+        Dataset dataset = DatasetFactory.create();
+        for(int i = 0; i < ontologies.length; i++){
+            Model m = ModelFactory.createDefaultModel();
+            m.read(new StringReader(prefixDefinition + ontologies[i]), null, "Turtle");
+            dataset.addNamedModel("http://example.com/graph" + i, m);
+        }
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(dataset).start()){
+            SparqlDlExpressivityChecker checker = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            checker.setMaxConcurrentQueries(4);
+            Map<String, NamedGraphExpressivity> results = checker.sweepNamedGraphs();
+            assertEquals(checker.patternToConstructs.size() + 1, endpoint.getRequests());
+            assertEquals(ontologies.length, results.size());
+            for(int i = 0; i < ontologies.length; i++){
+                String graph = "http://example.com/graph" + i;
+                SparqlDlExpressivityChecker single = new SparqlDlExpressivityChecker(endpoint.getUrl(), graph);
+                assertEquals(single.getConstructs(), results.get(graph).getConstructs(), graph);
+                assertEquals(single.expressibleInLanguages(), results.get(graph).expressibleInLanguages(), graph);
+            }
+            assertTrue(results.get("http://example.com/graph3").getConstructs().isEmpty());
+        }
+    }
+
+    @Test
+    void testSweepNamedGraphsFromCache(@TempDir Path tempDir) throws Exception {
+        Dataset dataset = DatasetFactory.create();
+        for(int i = 0; i < 3; i++){
+            Model m = ModelFactory.createDefaultModel();
+            m.read(new StringReader(prefixDefinition + ":p" + i + " owl:inverseOf :q. :x rdfs:subClassOf :y."), null, "Turtle");
+            dataset.addNamedModel("http://example.com/graph" + i, m);
+        }
+        try(LocalSparqlEndpoint endpoint = new LocalSparqlEndpoint(dataset).start()){
+            SparqlDlExpressivityChecker first = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            first.setCache(new QueryResultCache(tempDir));
+            Map<String, NamedGraphExpressivity> expected = first.sweepNamedGraphs();
+            assertEquals(3, expected.size());
+            int requests = endpoint.getRequests();
+
+            SparqlDlExpressivityChecker second = new SparqlDlExpressivityChecker(endpoint.getUrl());
+            second.setCache(new QueryResultCache(tempDir));
+            Map<String, NamedGraphExpressivity> cached = second.sweepNamedGraphs();
+            assertEquals(requests, endpoint.getRequests());
+            assertEquals(expected.keySet(), cached.keySet());
+            for(String graph : expected.keySet()){
+                assertEquals(expected.get(graph).getConstructs(), cached.get(graph).getConstructs(), graph);
+            }
+        }
+    }
+
+    @Test
+    void testNoRetryOfCancelledQuery() {
+        //connection refused is transient
+        SparqlDlExpressivityChecker c = new SparqlDlExpressivityChecker("http://localhost:1/sparql");
+        c.setMaxRetries(2);
+        c.setInitialBackoffMillis(1);
+        AtomicInteger queries = new AtomicInteger();
+        c.addListener(new ExpressivityCheckListener() {
+            @Override
+            public void queryExecuted(String endpoint, long nanos, long bytes, boolean success) {
+                queries.incrementAndGet();
+            }
+        });
+        Query query = c.getQueryCatalog().createAskQuery("?x owl:inverseOf ?y.", null);
+        assertThrows(QueryExceptionHTTP.class, () -> c.execute(query, SparqlDlExpressivityChecker.NO_DEADLINE, QueryExecution::execAsk));
+        assertEquals(3, queries.get());
+
+        queries.set(0);
+        assertThrows(QueryExceptionHTTP.class, () -> c.execute(query, SparqlDlExpressivityChecker.NO_DEADLINE, QueryExecution::execAsk, () -> true));
+        assertEquals(1, queries.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        ":x owl:oneOf (\"Test\"). :x a rdfs:Datatype.",
+        ":x owl:oneOf (:y :z).",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:someValuesFrom owl:Thing].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:hasValue :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:qualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:maxQualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onDataRange rdfs:Literal].",
+        ":y a owl:ObjectProperty. :z a owl:ObjectProperty. :x a owl:AllDisjointProperties . :x owl:members (:y :z).",
+        ":x a owl:AllDifferent. :x owl:members (:y :z).",
+        ":x owl:propertyChainAxiom (:y :z). :a owl:inverseOf :b. :a a owl:TransitiveProperty, owl:FunctionalProperty. :a rdfs:subPropertyOf :b."
+    })
+    void checkBatchQuerySameConstructsAsAsk(String ontText) {
+        String ont = prefixDefinition + ontText;
+        Model m = ModelFactory.createDefaultModel();
+        m.read(new StringReader(ont), null, "Turtle");
+
+        SparqlDlExpressivityChecker c = new SparqlDlExpressivityChecker("http://localhost/sparql");
+        //serialize the query as it is sent to the endpoint
+        Query batchQuery = QueryFactory.create(c.createBatchQuery(c.constructToSparqlQuery.keySet()).toString());
+        JenaDLExpressivityChecker batched = new JenaDLExpressivityChecker() {
+            @Override
+            protected void checkConstructs() {
+                try (QueryExecution qe = QueryExecutionFactory.create(batchQuery, m)){
+                    ResultSet results = qe.execSelect();
+                    while(results.hasNext()){
+                        addConstruct(Construct.valueOf(results.next().getLiteral("construct").getString()));
+                    }
+                }
+            }
+        };
+        assertEquals(new ModelDlExpressivityChecker(m).getConstructs(), batched.getConstructs());
+    }
+}
@@ -0,0 +1,101 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.semanticweb.owlapi.util.Construct;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamDlExpressivityCheckerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        ":x owl:inverseOf :y.",
+        ":x a owl:SymmetricProperty.",
+        ":x owl:datatypeComplementOf :y.",
+        ":x owl:oneOf (\"Test\"). :x a rdfs:Datatype.",
+        ":x owl:oneOf (:y :z).",
+        ":x owl:oneOf (:y \"Test\").",
+        ":x owl:onDatatype xsd:integer; owl:withRestrictions ([xsd:minInclusive 18]).",
+        ":x owl:onDatatype xsd:integer.",
+        ":x owl:intersectionOf (:y :z)",
+        ":x owl:unionOf (:y :z)",
+        ":x owl:complementOf :y.",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:someValuesFrom :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:someValuesFrom owl:Thing].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:allValuesFrom :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:hasValue :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:hasValue \"5\"^^xsd:nonNegativeInteger].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:minCardinality \"5\"^^xsd:nonNegativeInteger].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:minQualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass owl:Thing].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:qualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:maxQualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onDataRange rdfs:Literal].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:maxQualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onDataRange xsd:integer].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:onClass :z].",
+        ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:hasSelf \"true\"^^xsd:boolean].",
+        ":y a owl:AsymmetricProperty.",
+        ":y a owl:ReflexiveProperty.",
+        ":x owl:disjointWith :y.",
+        ":x a owl:AllDisjointClasses. :x owl:members (:y :z).",
+        ":x a owl:AllDisjointClasses.",
+        ":x a owl:ObjectProperty. :x rdfs:domain :y.",
+        ":x rdfs:range :y.",
+        ":x owl:equivalentProperty :y.",
+        ":x rdfs:subPropertyOf :y.",
+        ":x owl:differentFrom :y.",
+        ":x a owl:AllDifferent. :x owl:members (:y :z).",
+        ":x a owl:AllDifferent.",
+        ":x a owl:ObjectProperty. :y a owl:ObjectProperty. :x owl:propertyDisjointWith :y.",
+        ":x a owl:ObjectProperty. :x owl:propertyDisjointWith :y.",
+        ":x a owl:DatatypeProperty. :y a owl:DatatypeProperty. :x owl:propertyDisjointWith :y.",
+        ":y a owl:ObjectProperty. :z a owl:ObjectProperty. :x a owl:AllDisjointProperties . :x owl:members (:y :z).",
+        ":x a owl:AllDisjointProperties . :x owl:members (:y :z).",
+        ":x a owl:FunctionalProperty.",
+        ":x a owl:InverseFunctionalProperty.",
+        ":x a owl:TransitiveProperty.",
+        ":x a owl:IrreflexiveProperty.",
+        ":x owl:sameAs :y.",
+        ":x owl:disjointUnionOf (:y).",
+        ":x owl:propertyChainAxiom (:y :z). :y a owl:ObjectProperty. :z a owl:ObjectProperty.",
+        ":x owl:propertyChainAxiom (:y :z). :a owl:inverseOf :b.",
+        ":p a owl:DatatypeProperty. :x :p \"test\"."
+    })
+    void checkSameConstructsAsModelChecker(String ontText) throws IOException {
+        String ont = prefixDefinition + ontText;
+        Path file = tempDir.resolve("ontology.ttl");
+        Files.write(file, ont.getBytes(StandardCharsets.UTF_8));
+
+        ModelDlExpressivityChecker modelChecker = new ModelDlExpressivityChecker(ont);
+        StreamDlExpressivityChecker streamChecker = new StreamDlExpressivityChecker(file.toString());
+        assertEquals(modelChecker.getConstructs(), streamChecker.getConstructs());
+        assertEquals(modelChecker.expressibleInLanguages(), streamChecker.expressibleInLanguages());
+    }
+
+    @Test
+    void checkJoinIndependentOfTripleOrder() {
+        //list cells appear before the triple which references the list
+        String nt = "_:l <http://www.w3.org/1999/02/22-rdf-syntax-ns#first> \"Test\" .\n" +
+                "_:l <http://www.w3.org/1999/02/22-rdf-syntax-ns#rest> <http://www.w3.org/1999/02/22-rdf-syntax-ns#nil> .\n" +
+                "_:r <http://www.w3.org/2002/07/owl#onClass> <http://example.com/z> .\n" +
+                "<http://example.com/x> <http://www.w3.org/2002/07/owl#oneOf> _:l .\n" +
+                "_:r <http://www.w3.org/2002/07/owl#minQualifiedCardinality> \"5\" .\n";
+        StreamingConstructDetector detector = new StreamingConstructDetector();
+        RDFParser.fromString(nt).lang(Lang.NTRIPLES).parse(detector);
+        assertEquals(Arrays.asList(Construct.Q, Construct.D), Arrays.asList(detector.getConstructs().toArray()));
+    }
+}
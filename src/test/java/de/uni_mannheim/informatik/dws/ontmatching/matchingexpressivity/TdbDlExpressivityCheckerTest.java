@@ -0,0 +1,51 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TdbDlExpressivityCheckerTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLoadAndCheckNamedGraph() throws IOException {
+        String ont = prefixDefinition + ":x rdfs:subClassOf [a owl:Restriction; owl:onProperty :y; owl:qualifiedCardinality \"5\"^^xsd:nonNegativeInteger; owl:onClass :z]. :a owl:inverseOf :b.";
+        Path file = tempDir.resolve("ontology.ttl");
+        Files.write(file, ont.getBytes(StandardCharsets.UTF_8));
+        String directory = tempDir.resolve("tdb").toString();
+
+        TdbDlExpressivityChecker checker = new TdbDlExpressivityChecker(directory, "http://example.com/graph");
+        assertTrue(checker.loadIfEmpty(file.toString()));
+        assertFalse(checker.loadIfEmpty(file.toString()));
+        assertEquals(new ModelDlExpressivityChecker(ont).getConstructs(), checker.getConstructs());
+
+        //same database, default graph is still empty
+        TdbDlExpressivityChecker defaultGraph = new TdbDlExpressivityChecker(directory);
+        assertEquals(Collections.emptyList(), defaultGraph.getConstructs());
+    }
+
+    @Test
+    void testParallelInReadTransactions() {
+        String ont = prefixDefinition + ":a owl:inverseOf :b. :d a owl:TransitiveProperty. :x owl:unionOf (:y :z). :i owl:sameAs :j.";
+        Dataset dataset = TDB2Factory.createDataset();
+        Txn.executeWrite(dataset, () -> RDFParser.fromString(ont).lang(Lang.TURTLE).parse(dataset.getDefaultModel()));
+        TdbDlExpressivityChecker checker = new TdbDlExpressivityChecker(dataset, null);
+        checker.setParallelism(4);
+        assertEquals(new ModelDlExpressivityChecker(ont).getConstructs(), checker.getConstructs());
+    }
+}
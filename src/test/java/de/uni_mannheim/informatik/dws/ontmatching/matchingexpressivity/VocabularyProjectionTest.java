@@ -0,0 +1,62 @@
+package de.uni_mannheim.informatik.dws.ontmatching.matchingexpressivity;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VocabularyProjectionTest {
+
+    private static String prefixDefinition = "@prefix : <http://example.com/>. @prefix owl: <http://www.w3.org/2002/07/owl#>. @prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#>. @prefix xsd: <http://www.w3.org/2001/XMLSchema#>.";
+
+    private static String ontology = prefixDefinition
+            + ":Person a owl:Class; rdfs:subClassOf [a owl:Restriction; owl:onProperty :knows; owl:someValuesFrom :Person]. "
+            + ":Student rdfs:subClassOf [a owl:Restriction; owl:onProperty :attends; owl:maxQualifiedCardinality \"2\"^^xsd:nonNegativeInteger; owl:onClass :Course]. "
+            + ":Weekday owl:oneOf (:Monday :Tuesday). :Age owl:oneOf (1 2). :Course owl:disjointWith :Person. "
+            + ":knows a owl:ObjectProperty, owl:SymmetricProperty; rdfs:domain :Person. :p a owl:ReflexiveProperty. "
+            + ":x a owl:AllDisjointProperties; owl:members (:knows :attends). :attends a owl:ObjectProperty. "
+            + ":alice a :Person; :knows :bob; :name \"Alice\"; :age 42; owl:sameAs :alice2. :bob a :Student; :attends :logic. ";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameMatchesAsFullModel() throws IOException {
+        Path file = tempDir.resolve("ontology.ttl");
+        Files.write(file, ontology.getBytes(StandardCharsets.UTF_8));
+        QueryCatalog catalog = QueryCatalog.getDefault();
+        Model full = ModelFactory.createDefaultModel();
+        full.read(new StringReader(ontology), null, "Turtle");
+        Model projected = catalog.getProjection().load(file.toString());
+        assertTrue(projected.size() < full.size());
+
+        ModelDlExpressivityChecker fullChecker = new ModelDlExpressivityChecker(full);
+        ModelDlExpressivityChecker projectedChecker = new ModelDlExpressivityChecker(projected);
+        for(String pattern : catalog.getPatternToConstructs().keySet()){
+            assertEquals(fullChecker.ask(pattern), projectedChecker.ask(pattern), pattern);
+        }
+        assertEquals(fullChecker.getConstructs(), projectedChecker.getConstructs());
+    }
+
+    @Test
+    void testAboxIsDropped() throws IOException {
+        Path file = tempDir.resolve("abox.ttl");
+        Files.write(file, (prefixDefinition + ":alice a :Person; :knows :bob; :name \"Alice\". :p a owl:TransitiveProperty.").getBytes(StandardCharsets.UTF_8));
+        Model projected = QueryCatalog.getDefault().getProjection().load(file.toString());
+        assertEquals(1, projected.size());
+    }
+
+    @Test
+    void testVariablePredicateKeepsAllTriples() throws IOException {
+        assertFalse(QueryCatalog.getBuiltin().getProjection().isAllTriples());
+        QueryCatalog extended = QueryCatalog.getBuiltin().extend(new StringReader("D ?x ?p ?y. FILTER(isLiteral(?y))"));
+        assertTrue(extended.getProjection().isAllTriples());
+    }
+}